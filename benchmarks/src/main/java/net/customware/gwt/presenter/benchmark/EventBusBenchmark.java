@@ -0,0 +1,94 @@
+package net.customware.gwt.presenter.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.customware.gwt.presenter.client.CopyOnWriteEventBus;
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.SourceEventBus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+
+/**
+ * Measures firing a single event through each {@link EventBus} implementation
+ * with a varying number of handlers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventBusBenchmark {
+
+    public interface CountingHandler extends EventHandler {
+        void onCount( CountingEvent event );
+    }
+
+    public static class CountingEvent extends GwtEvent<CountingHandler> {
+
+        private static final Type<CountingHandler> TYPE = new Type<CountingHandler>();
+
+        private int count;
+
+        @Override
+        protected void dispatch( CountingHandler handler ) {
+            handler.onCount( this );
+        }
+
+        @Override
+        public Type<CountingHandler> getAssociatedType() {
+            return TYPE;
+        }
+    }
+
+    @Param({ "default", "copyOnWrite" })
+    public String bus;
+
+    @Param({ "0", "1", "10", "100" })
+    public int handlerCount;
+
+    private SourceEventBus eventBus;
+
+    private final Object source = new Object();
+
+    @Setup
+    public void setUp() {
+        eventBus = "copyOnWrite".equals( bus ) ? new CopyOnWriteEventBus() : new DefaultEventBus();
+        CountingHandler handler = new CountingHandler() {
+            public void onCount( CountingEvent event ) {
+                event.count++;
+            }
+        };
+        for ( int i = 0; i < handlerCount; i++ ) {
+            eventBus.addHandler( CountingEvent.TYPE, handler );
+        }
+    }
+
+    @Benchmark
+    public int fireEvent() {
+        CountingEvent event = new CountingEvent();
+        eventBus.fireEvent( event );
+        return event.count;
+    }
+
+    @Benchmark
+    public int fireEventFromSource() {
+        CountingEvent event = new CountingEvent();
+        eventBus.fireEventFromSource( event, source );
+        return event.count;
+    }
+}
@@ -0,0 +1,79 @@
+package net.customware.gwt.presenter.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building a {@link PlaceRequest} by chaining
+ * {@link PlaceRequest#with(String, String)} against using a
+ * {@link PlaceRequest.Builder}, and measures looking parameters up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlaceRequestBenchmark {
+
+    @Param({ "1", "4", "16" })
+    public int paramCount;
+
+    private String[] names;
+
+    private String[] values;
+
+    private PlaceRequest request;
+
+    @Setup
+    public void setUp() {
+        names = new String[paramCount];
+        values = new String[paramCount];
+        for ( int i = 0; i < paramCount; i++ ) {
+            // Not in sorted order, as they would usually be added.
+            names[i] = "param" + ( ( i * 7 ) % paramCount );
+            values[i] = "value" + i;
+        }
+        request = buildWithBuilder();
+    }
+
+    @Benchmark
+    public PlaceRequest buildWithChainedWith() {
+        PlaceRequest built = new PlaceRequest( "place" );
+        for ( int i = 0; i < names.length; i++ ) {
+            built = built.with( names[i], values[i] );
+        }
+        return built;
+    }
+
+    @Benchmark
+    public PlaceRequest buildWithBuilder() {
+        PlaceRequest.Builder builder = new PlaceRequest.Builder( "place" );
+        for ( int i = 0; i < names.length; i++ ) {
+            builder.with( names[i], values[i] );
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public int getParameters() {
+        int length = 0;
+        for ( String name : names ) {
+            length += request.getParameter( name, "" ).length();
+        }
+        return length;
+    }
+}
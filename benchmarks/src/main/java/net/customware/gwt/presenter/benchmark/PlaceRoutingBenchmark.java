@@ -0,0 +1,122 @@
+package net.customware.gwt.presenter.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.place.DefaultPlaceManager;
+import net.customware.gwt.presenter.client.place.InMemoryHistoryAdapter;
+import net.customware.gwt.presenter.client.place.ParameterTokenFormatter;
+import net.customware.gwt.presenter.client.place.Place;
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+import net.customware.gwt.presenter.client.place.PlaceRequestEvent;
+import net.customware.gwt.presenter.client.place.TokenFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures routing requests through a {@link DefaultPlaceManager} with many
+ * registered places, both from a {@link PlaceRequestEvent} and from a History
+ * token. Each navigation also writes the revealed place back to an
+ * {@link InMemoryHistoryAdapter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlaceRoutingBenchmark {
+
+    private static class BenchmarkPlace extends Place {
+
+        private final String name;
+
+        private String id;
+
+        BenchmarkPlace( String name ) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isRoutedByName() {
+            return true;
+        }
+
+        @Override
+        protected void handleRequest( PlaceRequest request ) {
+            id = request.getParameter( "id", null );
+        }
+
+        @Override
+        protected PlaceRequest prepareRequest( PlaceRequest request ) {
+            return request.with( "id", id );
+        }
+
+        @Override
+        protected void reveal() {
+        }
+    }
+
+    @Param({ "10", "100", "500" })
+    public int placeCount;
+
+    private EventBus eventBus;
+
+    private InMemoryHistoryAdapter history;
+
+    private PlaceRequest[] requests;
+
+    private String[] tokens;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        eventBus = new DefaultEventBus();
+        history = new InMemoryHistoryAdapter();
+        TokenFormatter formatter = new ParameterTokenFormatter();
+        new DefaultPlaceManager( eventBus, formatter, history ) {
+            {
+                for ( int i = 0; i < placeCount; i++ ) {
+                    registerPlace( new BenchmarkPlace( "place" + i ) );
+                }
+            }
+        };
+
+        requests = new PlaceRequest[placeCount];
+        tokens = new String[placeCount];
+        for ( int i = 0; i < placeCount; i++ ) {
+            // Spread the requests over the places.
+            requests[i] = new PlaceRequest( "place" + ( ( i * 31 ) % placeCount ) ).with( "id", String.valueOf( i ) );
+            tokens[i] = formatter.toHistoryToken( requests[i] );
+        }
+    }
+
+    @Benchmark
+    public void routeRequestEvent() {
+        PlaceRequestEvent.fire( eventBus, requests[next] );
+        next = ( next + 1 ) % requests.length;
+    }
+
+    @Benchmark
+    public void routeHistoryToken() {
+        history.newItem( tokens[next], true );
+        next = ( next + 1 ) % tokens.length;
+    }
+}
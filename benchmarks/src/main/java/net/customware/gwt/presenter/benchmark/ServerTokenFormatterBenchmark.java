@@ -0,0 +1,101 @@
+package net.customware.gwt.presenter.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+import net.customware.gwt.presenter.server.ServerTokenFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of a single {@link ServerTokenFormatter} and a
+ * single set of {@link PlaceRequest}s shared by one thread, and by one thread
+ * per core. With no shared mutable state, the throughput of the second should
+ * scale with the number of cores. Use <code>-t</code> to try other thread
+ * counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerTokenFormatterBenchmark {
+
+    /**
+     * The formatter and requests, shared by all threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Requests {
+
+        @Param({ "1", "4" })
+        public int paramCount;
+
+        final ServerTokenFormatter formatter = ServerTokenFormatter.INSTANCE;
+
+        final PlaceRequest[] requests = new PlaceRequest[1024];
+
+        @Setup
+        public void setUp() {
+            for ( int i = 0; i < requests.length; i++ ) {
+                PlaceRequest.Builder builder = new PlaceRequest.Builder( "place" ).with( "id", String.valueOf( i ) );
+                for ( int param = 1; param < paramCount; param++ ) {
+                    builder.with( "param" + param, "value" + param );
+                }
+                requests[i] = builder.build();
+            }
+        }
+    }
+
+    /**
+     * The output buffer and position of each thread.
+     */
+    @State(Scope.Thread)
+    public static class Output {
+
+        final StringBuilder out = new StringBuilder( 256 );
+
+        int next;
+
+        PlaceRequest next( Requests requests ) {
+            PlaceRequest request = requests.requests[next];
+            next = ( next + 1 ) % requests.requests.length;
+            return request;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int appendSingleThread( Requests requests, Output output ) {
+        return append( requests, output );
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public int appendAllThreads( Requests requests, Output output ) {
+        return append( requests, output );
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String toHistoryTokenAllThreads( Requests requests, Output output ) {
+        return requests.formatter.toHistoryToken( output.next( requests ) );
+    }
+
+    private int append( Requests requests, Output output ) {
+        StringBuilder out = output.out;
+        out.setLength( 0 );
+        requests.formatter.appendHistoryToken( output.next( requests ), out );
+        return out.length();
+    }
+}
@@ -0,0 +1,72 @@
+package net.customware.gwt.presenter.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.customware.gwt.presenter.client.place.ParameterTokenFormatter;
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+import net.customware.gwt.presenter.client.place.TokenFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures formatting and parsing history tokens with the
+ * {@link ParameterTokenFormatter} at different parameter counts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TokenFormatterBenchmark {
+
+    @Param({ "0", "1", "4", "16" })
+    public int paramCount;
+
+    /**
+     * If <code>true</code>, every value contains a separator which has to be escaped.
+     */
+    @Param({ "false", "true" })
+    public boolean escaped;
+
+    private final TokenFormatter formatter = new ParameterTokenFormatter();
+
+    private PlaceRequest request;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        PlaceRequest.Builder builder = new PlaceRequest.Builder( "place" );
+        for ( int i = 0; i < paramCount; i++ ) {
+            builder.with( "param" + i, escaped ? "a;b=c" + i : "value" + i );
+        }
+        request = builder.build();
+        token = formatter.toHistoryToken( request );
+    }
+
+    @Benchmark
+    public String format() {
+        return formatter.toHistoryToken( request );
+    }
+
+    @Benchmark
+    public PlaceRequest parse() {
+        return formatter.toPlaceRequest( token );
+    }
+
+    @Benchmark
+    public PlaceRequest roundTrip() {
+        return formatter.toPlaceRequest( formatter.toHistoryToken( request ) );
+    }
+}
@@ -0,0 +1,105 @@
+package net.customware.gwt.presenter.benchmark.replay;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays a recorded navigation trace and reports the throughput, allocation
+ * and slowest places. Run it from the benchmark jar:
+ * <p/>
+ * <pre>
+ * java -cp target/benchmarks.jar:myapp.jar net.customware.gwt.presenter.benchmark.replay.NavigationReplay \
+ *     [--setup com.example.MyPlaceSetup] [--warmup 5] [--passes 10] [--top 20] trace.txt
+ * </pre>
+ * <p/>
+ * The trace has one history token per line. Blank lines and lines starting
+ * with '#' are ignored. If a line contains tabs, only the text after the last
+ * tab is used, so logs with timestamps or user ids in front can be used
+ * directly. Without <code>--setup</code>, the trace is replayed against
+ * simulated places, via the {@link SimulatedPlaceSetup}.
+ */
+public class NavigationReplay {
+
+    public static void main( String[] args ) throws Exception {
+        String setupClass = null;
+        int warmup = 5;
+        int passes = 10;
+        int top = 20;
+        String file = null;
+
+        for ( int i = 0; i < args.length; i++ ) {
+            String arg = args[i];
+            if ( "--setup".equals( arg ) && i + 1 < args.length )
+                setupClass = args[++i];
+            else if ( "--warmup".equals( arg ) && i + 1 < args.length )
+                warmup = Integer.parseInt( args[++i] );
+            else if ( "--passes".equals( arg ) && i + 1 < args.length )
+                passes = Integer.parseInt( args[++i] );
+            else if ( "--top".equals( arg ) && i + 1 < args.length )
+                top = Integer.parseInt( args[++i] );
+            else if ( file == null && !arg.startsWith( "--" ) )
+                file = arg;
+            else
+                usage( "Unexpected argument: " + arg );
+        }
+        if ( file == null )
+            usage( "No trace file given." );
+
+        PlaceSetup setup = setupClass == null ? new SimulatedPlaceSetup()
+                : (PlaceSetup) Class.forName( setupClass ).newInstance();
+
+        List<String> trace = readTrace( file );
+        ReplayReport report = new NavigationReplayer( setup ).replay( trace, warmup, passes );
+        report.print( System.out, top );
+    }
+
+    /**
+     * Reads the tokens from a trace file.
+     *
+     * @param file The file name.
+     * @return The tokens.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<String> readTrace( String file ) throws IOException {
+        Reader in = new InputStreamReader( new FileInputStream( file ), "UTF-8" );
+        try {
+            return readTrace( in );
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the tokens from a trace. The reader is not closed.
+     *
+     * @param trace The trace.
+     * @return The tokens.
+     * @throws IOException if the trace cannot be read.
+     */
+    public static List<String> readTrace( Reader trace ) throws IOException {
+        List<String> tokens = new ArrayList<String>();
+        BufferedReader in = new BufferedReader( trace );
+        String line;
+        while ( ( line = in.readLine() ) != null ) {
+            int tab = line.lastIndexOf( '\t' );
+            if ( tab >= 0 )
+                line = line.substring( tab + 1 );
+            line = line.trim();
+            if ( line.length() > 0 && line.charAt( 0 ) != '#' )
+                tokens.add( line );
+        }
+        return tokens;
+    }
+
+    private static void usage( String message ) {
+        System.err.println( message );
+        System.err.println( "Usage: NavigationReplay [--setup <PlaceSetup class>] [--warmup <passes>]"
+                + " [--passes <passes>] [--top <places>] <trace file>" );
+        System.exit( 1 );
+    }
+}
@@ -0,0 +1,137 @@
+package net.customware.gwt.presenter.benchmark.replay;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.place.DefaultPlaceManager;
+import net.customware.gwt.presenter.client.place.InMemoryHistoryAdapter;
+import net.customware.gwt.presenter.client.place.ParameterTokenFormatter;
+import net.customware.gwt.presenter.client.place.PlaceRevealedEvent;
+import net.customware.gwt.presenter.client.place.PlaceRevealedHandler;
+import net.customware.gwt.presenter.client.place.TokenFormatException;
+import net.customware.gwt.presenter.client.place.TokenFormatter;
+
+/**
+ * Replays a list of history tokens against a {@link DefaultPlaceManager} on a
+ * {@link DefaultEventBus}, using an {@link InMemoryHistoryAdapter}. Each token
+ * is navigated to as if the user had entered it, so it is parsed, routed to
+ * its place, and the revealed place is written back to the history. The time
+ * for each navigation is attributed to the place named in the token.
+ * <p/>
+ * A token equal to the current one is fired again, rather than skipped as a
+ * browser would.
+ */
+public class NavigationReplayer {
+
+    private final PlaceSetup placeSetup;
+
+    private final TokenFormatter tokenFormatter;
+
+    public NavigationReplayer( PlaceSetup placeSetup ) {
+        this( placeSetup, new ParameterTokenFormatter() );
+    }
+
+    public NavigationReplayer( PlaceSetup placeSetup, TokenFormatter tokenFormatter ) {
+        this.placeSetup = placeSetup;
+        this.tokenFormatter = tokenFormatter;
+    }
+
+    /**
+     * Replays the trace <code>warmupPasses</code> times without measuring, and
+     * then <code>passes</code> times, measuring each navigation.
+     *
+     * @param trace        The history tokens.
+     * @param warmupPasses The number of unmeasured passes.
+     * @param passes       The number of measured passes.
+     * @return The report.
+     */
+    public ReplayReport replay( List<String> trace, int warmupPasses, int passes ) {
+        // Parse up front, so the names are known and bad tokens can be skipped.
+        List<String> tokens = new ArrayList<String>( trace.size() );
+        List<String> names = new ArrayList<String>( trace.size() );
+        int malformed = 0;
+        for ( String token : trace ) {
+            try {
+                names.add( tokenFormatter.toPlaceRequest( token ).getName() );
+                tokens.add( token );
+            } catch ( TokenFormatException e ) {
+                malformed++;
+            }
+        }
+
+        EventBus eventBus = new DefaultEventBus();
+        InMemoryHistoryAdapter history = new InMemoryHistoryAdapter();
+        DefaultPlaceManager placeManager = new DefaultPlaceManager( eventBus, tokenFormatter, history ) {
+        };
+        placeSetup.registerPlaces( eventBus, placeManager, new LinkedHashSet<String>( names ) );
+
+        final int[] reveals = new int[1];
+        eventBus.addHandler( PlaceRevealedEvent.getType(), new PlaceRevealedHandler() {
+            public void onPlaceRevealed( PlaceRevealedEvent event ) {
+                reveals[0]++;
+            }
+        } );
+
+        for ( int pass = 0; pass < warmupPasses; pass++ ) {
+            for ( String token : tokens ) {
+                navigate( history, token );
+            }
+        }
+
+        Map<String, ReplayReport.PlaceStats> stats = new HashMap<String, ReplayReport.PlaceStats>();
+        int unmatched = 0;
+        long totalNanos = 0;
+        long allocatedBefore = allocatedBytes();
+        for ( int pass = 0; pass < passes; pass++ ) {
+            for ( int i = 0; i < tokens.size(); i++ ) {
+                int revealsBefore = reveals[0];
+                long start = System.nanoTime();
+                navigate( history, tokens.get( i ) );
+                long nanos = System.nanoTime() - start;
+                totalNanos += nanos;
+
+                if ( reveals[0] == revealsBefore )
+                    unmatched++;
+                String name = names.get( i );
+                ReplayReport.PlaceStats placeStats = stats.get( name );
+                if ( placeStats == null ) {
+                    placeStats = new ReplayReport.PlaceStats( name );
+                    stats.put( name, placeStats );
+                }
+                placeStats.record( nanos );
+            }
+        }
+        long allocatedAfter = allocatedBytes();
+        long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+
+        return new ReplayReport( tokens.size() * passes, totalNanos, allocated, unmatched, malformed, stats.values() );
+    }
+
+    private static void navigate( InMemoryHistoryAdapter history, String token ) {
+        if ( token.equals( history.getToken() ) )
+            history.fireCurrentHistoryState();
+        else
+            history.newItem( token, true );
+    }
+
+    /**
+     * @return The bytes allocated by the current thread so far, or
+     *         <code>-1</code> if the JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if ( bean instanceof com.sun.management.ThreadMXBean ) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if ( threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled() )
+                return threads.getThreadAllocatedBytes( Thread.currentThread().getId() );
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,24 @@
+package net.customware.gwt.presenter.benchmark.replay;
+
+import java.util.Set;
+
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.place.PlaceManager;
+
+/**
+ * Registers the places which a trace is replayed against. Implement this to
+ * replay a trace against an application's real {@link net.customware.gwt.presenter.client.place.Place}s
+ * and presenters, and pass the class name to {@link NavigationReplay} with
+ * <code>--setup</code>. Implementations need a public no-argument constructor.
+ */
+public interface PlaceSetup {
+
+    /**
+     * Registers the places with the place manager.
+     *
+     * @param eventBus     The event bus the places and presenters should use.
+     * @param placeManager The place manager.
+     * @param placeNames   The names of the places requested in the trace.
+     */
+    void registerPlaces( EventBus eventBus, PlaceManager placeManager, Set<String> placeNames );
+}
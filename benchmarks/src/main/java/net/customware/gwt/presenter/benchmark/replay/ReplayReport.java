@@ -0,0 +1,158 @@
+package net.customware.gwt.presenter.benchmark.replay;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The results of replaying a trace with a {@link NavigationReplayer}.
+ */
+public class ReplayReport {
+
+    /**
+     * The time spent navigating to a single place.
+     */
+    public static class PlaceStats {
+
+        private final String name;
+
+        private int count;
+
+        private long totalNanos;
+
+        private long maxNanos;
+
+        PlaceStats( String name ) {
+            this.name = name;
+        }
+
+        void record( long nanos ) {
+            count++;
+            totalNanos += nanos;
+            if ( nanos > maxNanos )
+                maxNanos = nanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public long getMeanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+    }
+
+    private static final Comparator<PlaceStats> BY_MEAN = new Comparator<PlaceStats>() {
+        public int compare( PlaceStats a, PlaceStats b ) {
+            long diff = b.getMeanNanos() - a.getMeanNanos();
+            return diff < 0 ? -1 : diff > 0 ? 1 : a.name.compareTo( b.name );
+        }
+    };
+
+    private final int navigations;
+
+    private final long totalNanos;
+
+    private final long allocatedBytes;
+
+    private final int unmatched;
+
+    private final int malformed;
+
+    private final List<PlaceStats> places;
+
+    ReplayReport( int navigations, long totalNanos, long allocatedBytes, int unmatched, int malformed,
+                  Collection<PlaceStats> places ) {
+        this.navigations = navigations;
+        this.totalNanos = totalNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.unmatched = unmatched;
+        this.malformed = malformed;
+        this.places = new ArrayList<PlaceStats>( places );
+        Collections.sort( this.places, BY_MEAN );
+    }
+
+    /**
+     * @return The number of navigations measured.
+     */
+    public int getNavigations() {
+        return navigations;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public double getNavigationsPerSecond() {
+        return totalNanos == 0 ? 0 : navigations * 1e9 / totalNanos;
+    }
+
+    /**
+     * @return The bytes allocated per navigation, or <code>-1</code> if the
+     *         JVM does not support measuring thread allocation.
+     */
+    public long getBytesPerNavigation() {
+        if ( allocatedBytes < 0 || navigations == 0 )
+            return -1;
+        return allocatedBytes / navigations;
+    }
+
+    /**
+     * @return The number of navigations which did not reveal a place.
+     */
+    public int getUnmatched() {
+        return unmatched;
+    }
+
+    /**
+     * @return The number of tokens in the trace which could not be parsed.
+     *         They are skipped.
+     */
+    public int getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * @return The places, slowest first by mean time per navigation.
+     */
+    public List<PlaceStats> getPlaces() {
+        return Collections.unmodifiableList( places );
+    }
+
+    /**
+     * Prints the report, listing up to <code>top</code> of the slowest places.
+     *
+     * @param out The stream to print to.
+     * @param top The number of places to list.
+     */
+    public void print( PrintStream out, int top ) {
+        out.printf( "Navigations:      %d%n", navigations );
+        out.printf( "Navigations/sec:  %.1f%n", getNavigationsPerSecond() );
+        long bytes = getBytesPerNavigation();
+        out.printf( "Bytes/navigation: %s%n", bytes < 0 ? "n/a" : String.valueOf( bytes ) );
+        out.printf( "Unmatched:        %d%n", unmatched );
+        out.printf( "Malformed tokens: %d%n", malformed );
+        out.println();
+        out.printf( "%-40s %10s %12s %12s%n", "Slowest places", "Count", "Mean (us)", "Max (us)" );
+        for ( int i = 0; i < places.size() && i < top; i++ ) {
+            PlaceStats stats = places.get( i );
+            out.printf( "%-40s %10d %12.2f %12.2f%n", stats.name, stats.count, stats.getMeanNanos() / 1e3,
+                    stats.maxNanos / 1e3 );
+        }
+    }
+}
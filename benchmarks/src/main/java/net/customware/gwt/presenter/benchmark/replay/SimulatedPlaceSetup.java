@@ -0,0 +1,96 @@
+package net.customware.gwt.presenter.benchmark.replay;
+
+import java.util.Set;
+
+import net.customware.gwt.presenter.client.BasicPresenter;
+import net.customware.gwt.presenter.client.Display;
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.place.PlaceManager;
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+import net.customware.gwt.presenter.client.place.PresenterPlace;
+
+/**
+ * The default {@link PlaceSetup}, which registers a {@link PresenterPlace} for
+ * each place name in the trace. Each presenter copies the request parameters
+ * into its state when prepared, and back into the request when one is created,
+ * so the replay exercises the full routing and History update path without
+ * any application code. Like the places in the
+ * {@link net.customware.gwt.presenter.benchmark.PlaceRoutingBenchmark}, they
+ * are routed by name.
+ */
+public class SimulatedPlaceSetup implements PlaceSetup {
+
+    private static class SimulatedPresenter extends BasicPresenter<Display> {
+
+        private PlaceRequest state;
+
+        SimulatedPresenter( EventBus eventBus ) {
+            super( new Display() {
+            }, eventBus );
+        }
+
+        @Override
+        protected void onBind() {
+        }
+
+        @Override
+        protected void onUnbind() {
+        }
+
+        @Override
+        protected void onRevealDisplay() {
+        }
+    }
+
+    private static class SimulatedPlace extends PresenterPlace<SimulatedPresenter> {
+
+        private final String name;
+
+        private final SimulatedPresenter presenter;
+
+        SimulatedPlace( String name, SimulatedPresenter presenter ) {
+            this.name = name;
+            this.presenter = presenter;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public boolean isRoutedByName() {
+            return true;
+        }
+
+        @Override
+        public SimulatedPresenter getPresenter() {
+            return presenter;
+        }
+
+        @Override
+        protected void preparePresenter( PlaceRequest request, SimulatedPresenter presenter ) {
+            presenter.state = request;
+        }
+
+        @Override
+        protected PlaceRequest prepareRequest( PlaceRequest request, SimulatedPresenter presenter ) {
+            PlaceRequest state = presenter.state;
+            if ( state == null )
+                return request;
+            PlaceRequest.Builder builder = new PlaceRequest.Builder( request );
+            for ( String param : state.getParameterNames() ) {
+                builder.with( param, state.getParameter( param, null ) );
+            }
+            return builder.build();
+        }
+    }
+
+    public void registerPlaces( EventBus eventBus, PlaceManager placeManager, Set<String> placeNames ) {
+        for ( String name : placeNames ) {
+            SimulatedPresenter presenter = new SimulatedPresenter( eventBus );
+            presenter.bind();
+            placeManager.registerPlace( new SimulatedPlace( name, presenter ) );
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package net.customware.gwt.presenter.benchmark.replay;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class NavigationReplayTest {
+
+    @Test
+    public void tokensAreReadOnePerLine() throws IOException {
+
+        List<String> tokens = NavigationReplay.readTrace(new StringReader("contacts\ncontact;id=1\r\ncontact;id=2"));
+
+        assertEquals(Arrays.asList("contacts", "contact;id=1", "contact;id=2"), tokens);
+    }
+
+    @Test
+    public void blankLinesAndCommentsAreIgnored() throws IOException {
+
+        List<String> tokens = NavigationReplay.readTrace(new StringReader("# recorded trace\n\ncontacts\n   \n  # indented\n"));
+
+        assertEquals(Arrays.asList("contacts"), tokens);
+    }
+
+    @Test
+    public void onlyTextAfterLastTabIsUsed() throws IOException {
+
+        List<String> tokens = NavigationReplay.readTrace(new StringReader(
+                "2009-10-01 12:00:00\tuser1\tcontact;id=1\n\tcontacts\nuser2\t\n"));
+
+        assertEquals(Arrays.asList("contact;id=1", "contacts"), tokens);
+    }
+
+    @Test
+    public void tokensAreTrimmed() throws IOException {
+
+        List<String> tokens = NavigationReplay.readTrace(new StringReader("  contacts  \nuser1\t contact;id=1 "));
+
+        assertEquals(Arrays.asList("contacts", "contact;id=1"), tokens);
+    }
+}
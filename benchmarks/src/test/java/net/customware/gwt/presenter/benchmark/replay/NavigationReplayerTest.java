@@ -0,0 +1,109 @@
+package net.customware.gwt.presenter.benchmark.replay;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.place.PlaceManager;
+
+import org.junit.Test;
+
+public class NavigationReplayerTest {
+
+    /**
+     * Registers simulated places for the given names only.
+     */
+    private static class PartialPlaceSetup implements PlaceSetup {
+
+        private final Set<String> registered;
+
+        private Set<String> requested;
+
+        private PartialPlaceSetup(String... registered) {
+            this.registered = new HashSet<String>(Arrays.asList(registered));
+        }
+
+        public void registerPlaces(EventBus eventBus, PlaceManager placeManager, Set<String> placeNames) {
+            requested = placeNames;
+            Set<String> names = new HashSet<String>(placeNames);
+            names.retainAll(registered);
+            new SimulatedPlaceSetup().registerPlaces(eventBus, placeManager, names);
+        }
+    }
+
+    private static Map<String, ReplayReport.PlaceStats> byName(ReplayReport report) {
+        Map<String, ReplayReport.PlaceStats> places = new HashMap<String, ReplayReport.PlaceStats>();
+        for (ReplayReport.PlaceStats stats : report.getPlaces()) {
+            places.put(stats.getName(), stats);
+        }
+        return places;
+    }
+
+    @Test
+    public void navigationsAreAttributedToPlaces() {
+
+        List<String> trace = Arrays.asList("contacts", "contact;id=1", "contact;id=2", "contacts");
+
+        ReplayReport report = new NavigationReplayer(new SimulatedPlaceSetup()).replay(trace, 1, 3);
+
+        assertEquals(12, report.getNavigations());
+        assertEquals(0, report.getUnmatched());
+        assertEquals(0, report.getMalformed());
+        Map<String, ReplayReport.PlaceStats> places = byName(report);
+        assertEquals(2, places.size());
+        assertEquals(6, places.get("contacts").getCount());
+        assertEquals(6, places.get("contact").getCount());
+    }
+
+    @Test
+    public void malformedTokensAreSkipped() {
+
+        List<String> trace = Arrays.asList("contacts", ";id=1", "contact;id=2");
+
+        ReplayReport report = new NavigationReplayer(new SimulatedPlaceSetup()).replay(trace, 0, 2);
+
+        assertEquals(4, report.getNavigations());
+        assertEquals(1, report.getMalformed());
+        assertEquals(2, report.getPlaces().size());
+    }
+
+    @Test
+    public void setupIsGivenRequestedNamesInTraceOrder() {
+
+        PartialPlaceSetup setup = new PartialPlaceSetup("contacts", "contact");
+
+        new NavigationReplayer(setup).replay(Arrays.asList("contact;id=1", "contacts", "contact;id=2", "about"), 0, 1);
+
+        assertEquals(Arrays.asList("contact", "contacts", "about"), Arrays.asList(setup.requested.toArray()));
+    }
+
+    @Test
+    public void navigationsToUnregisteredPlacesAreUnmatched() {
+
+        List<String> trace = Arrays.asList("contacts", "about", "contact;id=1", "about;section=team");
+
+        ReplayReport report = new NavigationReplayer(new PartialPlaceSetup("contacts", "contact")).replay(trace, 1, 2);
+
+        assertEquals(8, report.getNavigations());
+        assertEquals(4, report.getUnmatched());
+        assertEquals(4, byName(report).get("about").getCount());
+    }
+
+    @Test
+    public void repeatedTokensAreReplayed() {
+
+        List<String> trace = Arrays.asList("contacts", "contacts", "contacts");
+
+        ReplayReport report = new NavigationReplayer(new SimulatedPlaceSetup()).replay(trace, 0, 1);
+
+        assertEquals(3, report.getNavigations());
+        assertEquals(0, report.getUnmatched());
+        assertEquals(3, byName(report).get("contacts").getCount());
+    }
+}
@@ -0,0 +1,120 @@
+package net.customware.gwt.presenter.benchmark.replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ReplayReportTest {
+
+    private static ReplayReport.PlaceStats stats(String name, long... nanos) {
+        ReplayReport.PlaceStats stats = new ReplayReport.PlaceStats(name);
+        for (long time : nanos) {
+            stats.record(time);
+        }
+        return stats;
+    }
+
+    @Test
+    public void placeStatsAggregateNavigations() {
+
+        ReplayReport.PlaceStats stats = stats("contact", 300, 900, 600);
+
+        assertEquals("contact", stats.getName());
+        assertEquals(3, stats.getCount());
+        assertEquals(1800, stats.getTotalNanos());
+        assertEquals(900, stats.getMaxNanos());
+        assertEquals(600, stats.getMeanNanos());
+    }
+
+    @Test
+    public void emptyPlaceStatsHaveNoMean() {
+
+        assertEquals(0, stats("contact").getMeanNanos());
+    }
+
+    @Test
+    public void placesAreSortedSlowestFirst() {
+
+        ReplayReport report = new ReplayReport(6, 3000, -1, 0, 0, Arrays.asList(stats("fast", 100, 100),
+                stats("slow", 1000, 1200), stats("medium", 500, 500)));
+
+        List<ReplayReport.PlaceStats> places = report.getPlaces();
+        assertEquals("slow", places.get(0).getName());
+        assertEquals("medium", places.get(1).getName());
+        assertEquals("fast", places.get(2).getName());
+    }
+
+    @Test
+    public void placesWithTheSameMeanAreSortedByName() {
+
+        ReplayReport report = new ReplayReport(3, 300, -1, 0, 0, Arrays.asList(stats("c", 100), stats("a", 100),
+                stats("b", 100)));
+
+        List<ReplayReport.PlaceStats> places = report.getPlaces();
+        assertEquals("a", places.get(0).getName());
+        assertEquals("b", places.get(1).getName());
+        assertEquals("c", places.get(2).getName());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void placesCannotBeModified() {
+
+        ReplayReport report = new ReplayReport(1, 100, -1, 0, 0, Arrays.asList(stats("contact", 100)));
+
+        report.getPlaces().clear();
+    }
+
+    @Test
+    public void ratesAreCalculatedFromTotals() {
+
+        ReplayReport report = new ReplayReport(4, 2000000000L, 4096, 1, 2,
+                Collections.<ReplayReport.PlaceStats>emptyList());
+
+        assertEquals(4, report.getNavigations());
+        assertEquals(2.0, report.getNavigationsPerSecond(), 0.0);
+        assertEquals(1024, report.getBytesPerNavigation());
+        assertEquals(1, report.getUnmatched());
+        assertEquals(2, report.getMalformed());
+    }
+
+    @Test
+    public void unmeasuredAllocationIsReported() {
+
+        ReplayReport report = new ReplayReport(4, 1000, -1, 0, 0, Collections.<ReplayReport.PlaceStats>emptyList());
+
+        assertEquals(-1, report.getBytesPerNavigation());
+    }
+
+    @Test
+    public void emptyReportHasNoRates() {
+
+        ReplayReport report = new ReplayReport(0, 0, 0, 0, 0, Collections.<ReplayReport.PlaceStats>emptyList());
+
+        assertEquals(0.0, report.getNavigationsPerSecond(), 0.0);
+        assertEquals(-1, report.getBytesPerNavigation());
+    }
+
+    @Test
+    public void printListsOnlyTheSlowestPlaces() {
+
+        ReplayReport report = new ReplayReport(3, 1600, -1, 0, 0, Arrays.asList(stats("fast", 100),
+                stats("slow", 1000), stats("medium", 500)));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        report.print(new PrintStream(bytes, true), 2);
+
+        String output = bytes.toString();
+        assertTrue(output.contains("slow"));
+        assertTrue(output.contains("medium"));
+        assertFalse(output.contains("fast"));
+        assertTrue(output.contains("n/a"));
+    }
+}
@@ -0,0 +1,346 @@
+package net.customware.gwt.presenter.processor;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Generates the <code>Params</code> classes for places annotated with
+ * {@link net.customware.gwt.presenter.client.place.PlaceParameters}. Each
+ * class reads and writes the declared parameters with straight-line code,
+ * checking each parameter name once, without building an intermediate map.
+ */
+@SupportedAnnotationTypes(PlaceParametersProcessor.PLACE_PARAMETERS)
+public class PlaceParametersProcessor extends PlaceProcessor {
+
+    static final String PLACE_PARAMETERS = "net.customware.gwt.presenter.client.place.PlaceParameters";
+
+    private static final String PACKAGE = "net.customware.gwt.presenter.client.place.";
+
+    private static final String PLACE_REQUEST = PACKAGE + "PlaceRequest";
+
+    private static final String TOKEN_SCANNER = PACKAGE + "TokenScanner";
+
+    private static final String TOKEN_FORMAT_EXCEPTION = PACKAGE + "TokenFormatException";
+
+    private static final String VALUES = PACKAGE + "ParameterValues";
+
+    /**
+     * The supported parameter types.
+     */
+    private enum ParameterType {
+        STRING( "java.lang.String", "toString" ),
+        INT( "int", "toInt" ),
+        LONG( "long", "toLong" ),
+        BOOLEAN( "boolean", "toBoolean" ),
+        INTEGER_OBJECT( "java.lang.Integer", "toInteger" ),
+        LONG_OBJECT( "java.lang.Long", "toLong" ),
+        BOOLEAN_OBJECT( "java.lang.Boolean", "toBoolean" );
+
+        final String javaType;
+
+        final String converter;
+
+        ParameterType( String javaType, String converter ) {
+            this.javaType = javaType;
+            this.converter = converter;
+        }
+
+        boolean isPrimitive() {
+            return this == INT || this == LONG || this == BOOLEAN;
+        }
+
+        static ParameterType forName( String typeName ) {
+            for ( ParameterType type : values() ) {
+                if ( type.javaType.equals( typeName ) )
+                    return type;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A declared parameter.
+     */
+    private static class Parameter {
+
+        final String name;
+
+        final ParameterType type;
+
+        final boolean required;
+
+        final String property;
+
+        Parameter( String name, ParameterType type, boolean required, String property ) {
+            this.name = name;
+            this.type = type;
+            this.required = required || type.isPrimitive();
+            this.property = property;
+        }
+
+        String getter() {
+            String prefix = type == ParameterType.BOOLEAN ? "is" : "get";
+            return prefix + Character.toUpperCase( property.charAt( 0 ) ) + property.substring( 1 );
+        }
+
+        /**
+         * @return An expression which converts the string to the parameter's type.
+         */
+        String parse( String value ) {
+            String args = quote( name ) + ", " + value;
+            if ( !type.isPrimitive() )
+                args += ", " + required;
+            return VALUES + "." + type.converter + "( " + args + " )";
+        }
+
+        /**
+         * @return An expression which converts the property to a string.
+         */
+        String format() {
+            if ( type == ParameterType.STRING )
+                return "this." + property;
+            if ( type.isPrimitive() )
+                return "java.lang.String.valueOf( this." + property + " )";
+            return VALUES + ".format( this." + property + " )";
+        }
+    }
+
+    public PlaceParametersProcessor() {
+    }
+
+    @Override
+    public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment roundEnv ) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement( PLACE_PARAMETERS );
+        if ( annotation == null )
+            return false;
+        for ( Element element : roundEnv.getElementsAnnotatedWith( annotation ) ) {
+            TypeElement place = (TypeElement) element;
+            List<Parameter> parameters = readParameters( place );
+            if ( parameters != null )
+                generate( place, parameters );
+        }
+        return true;
+    }
+
+    /**
+     * Reads and checks the parameters declared for the place.
+     *
+     * @return The parameters, sorted by name, or <code>null</code> if an error was reported.
+     */
+    private List<Parameter> readParameters( TypeElement place ) {
+        if ( place.getKind() != ElementKind.CLASS || !isSubtype( place.asType(), PLACE ) ) {
+            error( place, "@PlaceParameters is only supported on Place classes." );
+            return null;
+        }
+        if ( getPlaceName( place ) == null ) {
+            error( place, "Places with @PlaceParameters must also be annotated with @PlaceName." );
+            return null;
+        }
+
+        Map<String, Parameter> parameters = new TreeMap<String, Parameter>();
+        Set<String> properties = new HashSet<String>();
+        boolean valid = true;
+        Object values = getValue( findAnnotation( place, PLACE_PARAMETERS ), "value" );
+        for ( Object value : values instanceof List<?> ? (List<?>) values : new ArrayList<Object>() ) {
+            AnnotationMirror mirror = (AnnotationMirror) ( (AnnotationValue) value ).getValue();
+            String name = (String) getValue( mirror, "name" );
+            Object type = getValue( mirror, "type" );
+            ParameterType parameterType = type == null ? ParameterType.STRING : ParameterType.forName( type.toString() );
+            Object property = getValue( mirror, "property" );
+            if ( property == null || ( (String) property ).length() == 0 )
+                property = toPropertyName( name );
+
+            if ( parameterType == null ) {
+                error( place, "The '" + name + "' parameter has an unsupported type: " + type );
+                valid = false;
+            } else if ( parameters.containsKey( name ) ) {
+                error( place, "The '" + name + "' parameter is declared more than once." );
+                valid = false;
+            } else if ( !SourceVersion.isName( (String) property ) || ( (String) property ).indexOf( '.' ) >= 0 ) {
+                error( place, "The '" + name + "' parameter needs a valid property name." );
+                valid = false;
+            } else if ( !properties.add( (String) property ) ) {
+                error( place, "The '" + property + "' property is used by more than one parameter." );
+                valid = false;
+            } else {
+                parameters.put( name, new Parameter( name, parameterType,
+                        Boolean.TRUE.equals( getValue( mirror, "required" ) ), (String) property ) );
+            }
+        }
+        return valid ? new ArrayList<Parameter>( parameters.values() ) : null;
+    }
+
+    /**
+     * Converts a parameter name to camel case, eg. <code>"user-id"</code> to
+     * <code>"userId"</code>.
+     */
+    static String toPropertyName( String name ) {
+        StringBuilder property = new StringBuilder( name.length() );
+        boolean upper = false;
+        for ( int i = 0; i < name.length(); i++ ) {
+            char c = name.charAt( i );
+            if ( property.length() == 0 ? Character.isJavaIdentifierStart( c ) : Character.isJavaIdentifierPart( c ) ) {
+                property.append( upper ? Character.toUpperCase( c ) : c );
+                upper = false;
+            } else {
+                upper = property.length() > 0;
+            }
+        }
+        return property.toString();
+    }
+
+    private void generate( TypeElement place, List<Parameter> parameters ) {
+        PrintWriter out = createSourceFile( place, "Params" );
+        if ( out != null ) {
+            try {
+                write( out, place, parameters );
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private void write( PrintWriter out, TypeElement place, List<Parameter> parameters ) {
+        String className = getGeneratedName( place, "Params" );
+        writeHeader( out, place );
+        out.println( "public class " + className + " {" );
+        out.println();
+        out.println( "    public static final java.lang.String PLACE_NAME = " + quote( getPlaceName( place ) ) + ";" );
+        out.println();
+        out.println( "    public static final " + PACKAGE + "PlaceTokenCodec CODEC = new " + PACKAGE + "PlaceTokenCodec() {" );
+        out.println( "        public java.lang.String getPlaceName() {" );
+        out.println( "            return PLACE_NAME;" );
+        out.println( "        }" );
+        out.println();
+        out.println( "        public " + PLACE_REQUEST + " toPlaceRequest( java.lang.String token ) throws " + TOKEN_FORMAT_EXCEPTION + " {" );
+        out.println( "            return parse( token ).toRequest();" );
+        out.println( "        }" );
+        out.println();
+        out.println( "        public java.lang.String toHistoryToken( " + PLACE_REQUEST + " request ) throws " + TOKEN_FORMAT_EXCEPTION + " {" );
+        out.println( "            return from( request ).toToken();" );
+        out.println( "        }" );
+        out.println( "    };" );
+
+        for ( Parameter parameter : parameters ) {
+            out.println();
+            out.println( "    private final " + parameter.type.javaType + " " + parameter.property + ";" );
+        }
+
+        // Constructor
+        out.println();
+        out.print( "    public " + className + "(" );
+        for ( int i = 0; i < parameters.size(); i++ ) {
+            Parameter parameter = parameters.get( i );
+            out.print( ( i == 0 ? " " : ", " ) + parameter.type.javaType + " " + parameter.property );
+        }
+        out.println( parameters.isEmpty() ? ") {" : " ) {" );
+        for ( Parameter parameter : parameters ) {
+            if ( parameter.required && !parameter.type.isPrimitive() ) {
+                out.println( "        if ( " + parameter.property + " == null )" );
+                out.println( "            throw new java.lang.IllegalArgumentException( \"The '\" + "
+                        + quote( parameter.name ) + " + \"' parameter is required.\" );" );
+            }
+            out.println( "        this." + parameter.property + " = " + parameter.property + ";" );
+        }
+        out.println( "    }" );
+
+        // Getters
+        for ( Parameter parameter : parameters ) {
+            out.println();
+            out.println( "    public " + parameter.type.javaType + " " + parameter.getter() + "() {" );
+            out.println( "        return " + parameter.property + ";" );
+            out.println( "    }" );
+        }
+
+        // from( PlaceRequest )
+        out.println();
+        out.println( "    public static " + className + " from( " + PLACE_REQUEST + " request ) throws " + TOKEN_FORMAT_EXCEPTION + " {" );
+        out.println( "        checkPlaceName( request.getName() );" );
+        out.print( "        return new " + className + "(" );
+        for ( int i = 0; i < parameters.size(); i++ ) {
+            Parameter parameter = parameters.get( i );
+            out.println( i == 0 ? "" : "," );
+            out.print( "                " + parameter.parse( "request.getParameter( " + quote( parameter.name ) + ", null )" ) );
+        }
+        out.println( parameters.isEmpty() ? ");" : " );" );
+        out.println( "    }" );
+
+        // parse( String )
+        out.println();
+        out.println( "    public static " + className + " parse( java.lang.String token ) throws " + TOKEN_FORMAT_EXCEPTION + " {" );
+        out.println( "        " + TOKEN_SCANNER + " scanner = new " + TOKEN_SCANNER + "( token );" );
+        out.println( "        checkPlaceName( scanner.getPlaceName() );" );
+        for ( int i = 0; i < parameters.size(); i++ ) {
+            out.println( "        java.lang.String value" + i + " = null;" );
+        }
+        out.println( "        while ( scanner.nextParameter() ) {" );
+        if ( !parameters.isEmpty() ) {
+            out.println( "            java.lang.String name = scanner.getParameterName();" );
+            for ( int i = 0; i < parameters.size(); i++ ) {
+                out.println( "            " + ( i == 0 ? "" : "else " ) + "if ( " + quote( parameters.get( i ).name ) + ".equals( name ) )" );
+                out.println( "                value" + i + " = scanner.getParameterValue();" );
+            }
+        }
+        out.println( "        }" );
+        out.print( "        return new " + className + "(" );
+        for ( int i = 0; i < parameters.size(); i++ ) {
+            out.println( i == 0 ? "" : "," );
+            out.print( "                " + parameters.get( i ).parse( "value" + i ) );
+        }
+        out.println( parameters.isEmpty() ? ");" : " );" );
+        out.println( "    }" );
+
+        out.println();
+        out.println( "    private static void checkPlaceName( java.lang.String name ) throws " + TOKEN_FORMAT_EXCEPTION + " {" );
+        out.println( "        if ( !PLACE_NAME.equals( name ) )" );
+        out.println( "            throw new " + TOKEN_FORMAT_EXCEPTION + "( \"Expected the '\" + PLACE_NAME + \"' place: \" + name );" );
+        out.println( "    }" );
+
+        // toRequest()
+        out.println();
+        out.println( "    public " + PLACE_REQUEST + " toRequest() {" );
+        out.println( "        return new " + PLACE_REQUEST + ".Builder( PLACE_NAME )" );
+        for ( Parameter parameter : parameters ) {
+            out.println( "                .with( " + quote( parameter.name ) + ", " + parameter.format() + " )" );
+        }
+        out.println( "                .build();" );
+        out.println( "    }" );
+
+        // toToken()
+        out.println();
+        out.println( "    public java.lang.String toToken() {" );
+        out.println( "        java.lang.StringBuilder out = new java.lang.StringBuilder( PLACE_NAME );" );
+        for ( Parameter parameter : parameters ) {
+            String indent = "        ";
+            if ( !parameter.type.isPrimitive() ) {
+                out.println( "        if ( this." + parameter.property + " != null )" );
+                indent += "    ";
+            }
+            out.println( indent + TOKEN_SCANNER + ".appendParameter( out, " + quote( parameter.name ) + ", "
+                    + parameter.format() + " );" );
+        }
+        out.println( "        return out.toString();" );
+        out.println( "    }" );
+
+        out.println();
+        out.println( "    @java.lang.Override" );
+        out.println( "    public java.lang.String toString() {" );
+        out.println( "        return toToken();" );
+        out.println( "    }" );
+        out.println( "}" );
+    }
+}
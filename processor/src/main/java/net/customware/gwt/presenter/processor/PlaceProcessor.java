@@ -0,0 +1,143 @@
+package net.customware.gwt.presenter.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+/**
+ * The base class for the processors which generate code for places.
+ */
+abstract class PlaceProcessor extends AbstractProcessor {
+
+    static final String PLACE_NAME = "net.customware.gwt.presenter.client.place.PlaceName";
+
+    static final String PLACE = "net.customware.gwt.presenter.client.place.Place";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Creates a source file for a class generated from the type.
+     *
+     * @param type   The type the class is generated from.
+     * @param suffix The suffix added to the type's name.
+     * @return The writer, or <code>null</code> if the file could not be created.
+     */
+    PrintWriter createSourceFile( TypeElement type, String suffix ) {
+        String packageName = getPackageName( type );
+        String qualifiedName = ( packageName.length() == 0 ? "" : packageName + "." ) + getGeneratedName( type, suffix );
+        try {
+            return new PrintWriter( processingEnv.getFiler().createSourceFile( qualifiedName, type ).openWriter() );
+        } catch ( IOException e ) {
+            error( type, "Unable to write " + qualifiedName + ": " + e.getMessage() );
+            return null;
+        }
+    }
+
+    /**
+     * Writes the package declaration and class comment of a generated class.
+     */
+    void writeHeader( PrintWriter out, TypeElement type ) {
+        String packageName = getPackageName( type );
+        if ( packageName.length() > 0 ) {
+            out.println( "package " + packageName + ";" );
+            out.println();
+        }
+        out.println( "/**" );
+        out.println( " * Generated by " + getClass().getName() + " from {@link " + type.getQualifiedName() + "}." );
+        out.println( " */" );
+    }
+
+    String getPackageName( TypeElement type ) {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf( type );
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+
+    /**
+     * Generated classes for nested types are named after their enclosing
+     * types, eg. <code>Outer_InnerImpl</code>.
+     */
+    static String getGeneratedName( TypeElement type, String suffix ) {
+        StringBuilder name = new StringBuilder( type.getSimpleName() );
+        Element enclosing = type.getEnclosingElement();
+        while ( enclosing instanceof TypeElement ) {
+            name.insert( 0, enclosing.getSimpleName() + "_" );
+            enclosing = enclosing.getEnclosingElement();
+        }
+        return name.append( suffix ).toString();
+    }
+
+    boolean isSubtype( TypeMirror type, String superTypeName ) {
+        TypeElement superType = processingEnv.getElementUtils().getTypeElement( superTypeName );
+        return superType != null && processingEnv.getTypeUtils().isSubtype(
+                processingEnv.getTypeUtils().erasure( type ), processingEnv.getTypeUtils().erasure( superType.asType() ) );
+    }
+
+    static AnnotationMirror findAnnotation( Element element, String annotationName ) {
+        for ( AnnotationMirror mirror : element.getAnnotationMirrors() ) {
+            TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+            if ( type.getQualifiedName().contentEquals( annotationName ) )
+                return mirror;
+        }
+        return null;
+    }
+
+    /**
+     * @return The value of the annotation element, or <code>null</code> if it is not set explicitly.
+     */
+    static Object getValue( AnnotationMirror mirror, String elementName ) {
+        if ( mirror != null ) {
+            for ( Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet() ) {
+                if ( entry.getKey().getSimpleName().contentEquals( elementName ) )
+                    return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The name declared by the type's {@link net.customware.gwt.presenter.client.place.PlaceName}
+     *         annotation, or <code>null</code> if it has none.
+     */
+    static String getPlaceName( Element type ) {
+        Object value = getValue( findAnnotation( type, PLACE_NAME ), "value" );
+        return value instanceof String ? (String) value : null;
+    }
+
+    static String quote( String value ) {
+        StringBuilder out = new StringBuilder( value.length() + 2 );
+        out.append( '"' );
+        for ( int i = 0; i < value.length(); i++ ) {
+            char c = value.charAt( i );
+            if ( c == '"' || c == '\\' ) {
+                out.append( '\\' ).append( c );
+            } else if ( c < 0x20 || c > 0x7e ) {
+                String hex = Integer.toHexString( c );
+                out.append( "\\u" );
+                for ( int pad = hex.length(); pad < 4; pad++ )
+                    out.append( '0' );
+                out.append( hex );
+            } else {
+                out.append( c );
+            }
+        }
+        return out.append( '"' ).toString();
+    }
+
+    void error( Element element, String message ) {
+        processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR, message, element );
+    }
+}
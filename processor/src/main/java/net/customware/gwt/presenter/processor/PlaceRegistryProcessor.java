@@ -0,0 +1,201 @@
+package net.customware.gwt.presenter.processor;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Generates the implementations of interfaces annotated with
+ * {@link net.customware.gwt.presenter.client.place.GeneratePlaceRegistry}.
+ * The implementation looks places up with a <code>switch</code> on the hash
+ * code of the requested name, followed by a single <code>equals</code> check,
+ * and only creates a place when its name is requested. The implementation
+ * takes a <code>Provider</code> for every listed place, so all of them are
+ * compiled into the application whether or not they are ever requested.
+ * <p/>
+ * The processor is registered in <code>META-INF/services</code>, so
+ * <code>javac</code> runs it whenever the <code>gwt-presenter-processor</code>
+ * jar is on the classpath.
+ */
+@SupportedAnnotationTypes(PlaceRegistryProcessor.GENERATE_PLACE_REGISTRY)
+public class PlaceRegistryProcessor extends PlaceProcessor {
+
+    static final String GENERATE_PLACE_REGISTRY = "net.customware.gwt.presenter.client.place.GeneratePlaceRegistry";
+
+    private static final String PLACE_REGISTRY = "net.customware.gwt.presenter.client.place.PlaceRegistry";
+
+    /**
+     * A place to include in a registry.
+     */
+    private static class PlaceEntry {
+
+        final String name;
+
+        final String className;
+
+        PlaceEntry( String name, String className ) {
+            this.name = name;
+            this.className = className;
+        }
+    }
+
+    public PlaceRegistryProcessor() {
+    }
+
+    @Override
+    public boolean process( Set<? extends TypeElement> annotations, RoundEnvironment roundEnv ) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement( GENERATE_PLACE_REGISTRY );
+        if ( annotation == null )
+            return false;
+        for ( Element element : roundEnv.getElementsAnnotatedWith( annotation ) ) {
+            TypeElement registry = (TypeElement) element;
+            List<PlaceEntry> places = readPlaces( registry );
+            if ( places != null )
+                generate( registry, places );
+        }
+        return true;
+    }
+
+    /**
+     * Reads and checks the places listed for the registry.
+     *
+     * @return The places, sorted by name, or <code>null</code> if an error was reported.
+     */
+    private List<PlaceEntry> readPlaces( TypeElement registry ) {
+        if ( registry.getKind() != ElementKind.INTERFACE
+                || !isSubtype( registry.asType(), PLACE_REGISTRY ) ) {
+            error( registry, "@GeneratePlaceRegistry is only supported on interfaces which extend PlaceRegistry." );
+            return null;
+        }
+
+        Map<String, PlaceEntry> places = new TreeMap<String, PlaceEntry>();
+        boolean valid = true;
+        for ( TypeMirror placeType : getClassValues( findAnnotation( registry, GENERATE_PLACE_REGISTRY ) ) ) {
+            TypeElement place = (TypeElement) processingEnv.getTypeUtils().asElement( placeType );
+            String className = place.getQualifiedName().toString();
+            String name = getPlaceName( place );
+            if ( name == null ) {
+                error( registry, className + " is not annotated with @PlaceName." );
+                valid = false;
+            } else if ( !isSubtype( placeType, PLACE ) ) {
+                error( registry, className + " is not a Place." );
+                valid = false;
+            } else if ( places.containsKey( name ) ) {
+                error( registry, className + " and " + places.get( name ).className
+                        + " are both named '" + name + "'." );
+                valid = false;
+            } else {
+                places.put( name, new PlaceEntry( name, className ) );
+            }
+        }
+        return valid ? new ArrayList<PlaceEntry>( places.values() ) : null;
+    }
+
+    private void generate( TypeElement registry, List<PlaceEntry> places ) {
+        PrintWriter out = createSourceFile( registry, "Impl" );
+        if ( out != null ) {
+            try {
+                write( out, registry, places );
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private void write( PrintWriter out, TypeElement registry, List<PlaceEntry> places ) {
+        String implName = getGeneratedName( registry, "Impl" );
+        String registryName = registry.getQualifiedName().toString();
+        writeHeader( out, registry );
+        out.println( "public class " + implName + " implements " + registryName + " {" );
+        out.println();
+        out.println( "    private static final java.util.List<java.lang.String> NAMES = java.util.Collections.unmodifiableList(" );
+        out.print( "            java.util.Arrays.asList( new java.lang.String[] {" );
+        for ( int i = 0; i < places.size(); i++ ) {
+            out.print( ( i == 0 ? " " : ", " ) + quote( places.get( i ).name ) );
+        }
+        out.println( " } ) );" );
+
+        for ( int i = 0; i < places.size(); i++ ) {
+            out.println();
+            out.println( "    private final com.google.inject.Provider<" + places.get( i ).className + "> place" + i + ";" );
+        }
+
+        out.println();
+        out.println( "    @com.google.inject.Inject" );
+        out.print( "    public " + implName + "(" );
+        for ( int i = 0; i < places.size(); i++ ) {
+            out.print( ( i == 0 ? " " : ", " ) + "com.google.inject.Provider<" + places.get( i ).className + "> place" + i );
+        }
+        out.println( places.isEmpty() ? ") {" : " ) {" );
+        for ( int i = 0; i < places.size(); i++ ) {
+            out.println( "        this.place" + i + " = place" + i + ";" );
+        }
+        out.println( "    }" );
+
+        out.println();
+        out.println( "    public net.customware.gwt.presenter.client.place.Place getPlace( java.lang.String name ) {" );
+        if ( !places.isEmpty() ) {
+            out.println( "        switch ( name.hashCode() ) {" );
+            for ( Map.Entry<Integer, List<Integer>> bucket : groupByHashCode( places ).entrySet() ) {
+                out.println( "            case " + bucket.getKey() + ":" );
+                for ( int i : bucket.getValue() ) {
+                    out.println( "                if ( " + quote( places.get( i ).name ) + ".equals( name ) )" );
+                    out.println( "                    return place" + i + ".get();" );
+                }
+                out.println( "                break;" );
+            }
+            out.println( "        }" );
+        }
+        out.println( "        return null;" );
+        out.println( "    }" );
+
+        out.println();
+        out.println( "    public java.util.List<java.lang.String> getPlaceNames() {" );
+        out.println( "        return NAMES;" );
+        out.println( "    }" );
+        out.println( "}" );
+    }
+
+    /**
+     * @return The indexes of the places, grouped by the hash codes of their names, in ascending order.
+     */
+    private static Map<Integer, List<Integer>> groupByHashCode( List<PlaceEntry> places ) {
+        Map<Integer, List<Integer>> buckets = new TreeMap<Integer, List<Integer>>();
+        for ( int i = 0; i < places.size(); i++ ) {
+            int hashCode = places.get( i ).name.hashCode();
+            List<Integer> bucket = buckets.get( hashCode );
+            if ( bucket == null ) {
+                bucket = new ArrayList<Integer>();
+                buckets.put( hashCode, bucket );
+            }
+            bucket.add( i );
+        }
+        return buckets;
+    }
+
+    private static List<TypeMirror> getClassValues( AnnotationMirror mirror ) {
+        List<TypeMirror> types = new ArrayList<TypeMirror>();
+        Object value = getValue( mirror, "value" );
+        if ( value instanceof List<?> ) {
+            for ( Object item : (List<?>) value ) {
+                Object type = ( (AnnotationValue) item ).getValue();
+                if ( type instanceof DeclaredType )
+                    types.add( (TypeMirror) type );
+            }
+        }
+        return types;
+    }
+}
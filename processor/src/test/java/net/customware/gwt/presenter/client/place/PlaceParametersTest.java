@@ -0,0 +1,112 @@
+package net.customware.gwt.presenter.client.place;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class PlaceParametersTest {
+
+    @PlaceName("contact")
+    @PlaceParameters({
+            @PlaceParameter(name = "id", type = long.class),
+            @PlaceParameter(name = "tab"),
+            @PlaceParameter(name = "show-all", type = Boolean.class)
+    })
+    public static class ContactPlace extends Place {
+
+        @Override
+        public String getName() {
+            return "contact";
+        }
+
+        @Override
+        protected void handleRequest(PlaceRequest request) {
+        }
+
+        @Override
+        protected PlaceRequest prepareRequest(PlaceRequest request) {
+            return request;
+        }
+
+        @Override
+        protected void reveal() {
+        }
+    }
+
+    private final ParameterTokenFormatter parameterFormatter = new ParameterTokenFormatter();
+
+    @Test
+    public void tokensAreParsedIntoTypedValues() {
+
+        PlaceParametersTest_ContactPlaceParams params = PlaceParametersTest_ContactPlaceParams.parse("contact;id=42;show-all=true;tab=a;;b");
+
+        assertEquals(42L, params.getId());
+        assertEquals("a;b", params.getTab());
+        assertEquals(Boolean.TRUE, params.getShowAll());
+    }
+
+    @Test
+    public void optionalParametersAreNullWhenMissing() {
+
+        PlaceParametersTest_ContactPlaceParams params = PlaceParametersTest_ContactPlaceParams.from(new PlaceRequest("contact").with("id", "7"));
+
+        assertEquals(7L, params.getId());
+        assertNull(params.getTab());
+        assertNull(params.getShowAll());
+        assertEquals("contact;id=7", params.toToken());
+    }
+
+    @Test
+    public void tokensMatchParameterTokenFormatter() {
+
+        PlaceParametersTest_ContactPlaceParams params = new PlaceParametersTest_ContactPlaceParams(3, Boolean.FALSE, "x=y");
+        PlaceRequest request = params.toRequest();
+
+        assertEquals(parameterFormatter.toHistoryToken(request), params.toToken());
+        assertEquals(request, parameterFormatter.toPlaceRequest(params.toToken()));
+        assertEquals(request, PlaceParametersTest_ContactPlaceParams.CODEC.toPlaceRequest(params.toToken()));
+    }
+
+    @Test
+    public void undeclaredParametersAreIgnored() {
+
+        PlaceRequest request = PlaceParametersTest_ContactPlaceParams.CODEC.toPlaceRequest("contact;extra=1;id=5");
+
+        assertEquals(new PlaceRequest("contact").with("id", "5"), request);
+    }
+
+    @Test
+    public void badValuesAreRejected() {
+
+        assertRejected("contact");
+        assertRejected("contact;id=abc");
+        assertRejected("contact;id=1;show-all=yes");
+        assertRejected("other;id=1");
+    }
+
+    @Test
+    public void compositeFormatterUsesCodecForItsPlace() {
+
+        CompositeTokenFormatter formatter = new CompositeTokenFormatter(parameterFormatter,
+                PlaceParametersTest_ContactPlaceParams.CODEC);
+
+        assertEquals(new PlaceRequest("contact").with("id", "1"), formatter.toPlaceRequest("contact;id=1;extra=2"));
+        assertEquals(new PlaceRequest("other").with("extra", "2"), formatter.toPlaceRequest("other;extra=2"));
+        assertEquals("contact;id=1", formatter.toHistoryToken(new PlaceRequest("contact").with("id", "1").with("extra", "2")));
+        assertEquals("other", formatter.toHistoryToken(new PlaceRequest("other")));
+        assertSame(PlaceParametersTest_ContactPlaceParams.PLACE_NAME, PlaceParametersTest_ContactPlaceParams.CODEC.getPlaceName());
+    }
+
+    private void assertRejected(String token) {
+        try {
+            PlaceParametersTest_ContactPlaceParams.parse(token);
+            fail("Expected a TokenFormatException for " + token);
+        } catch (TokenFormatException e) {
+            // Expected.
+        }
+    }
+
+}
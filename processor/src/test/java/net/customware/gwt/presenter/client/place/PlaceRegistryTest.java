@@ -0,0 +1,143 @@
+package net.customware.gwt.presenter.client.place;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.EventBus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Provider;
+
+public class PlaceRegistryTest {
+
+    public static class TestPlace extends Place {
+
+        private final String name;
+
+        PlaceRequest lastRequest;
+
+        TestPlace(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        protected void handleRequest(PlaceRequest request) {
+            lastRequest = request;
+        }
+
+        @Override
+        protected PlaceRequest prepareRequest(PlaceRequest request) {
+            return request;
+        }
+
+        @Override
+        protected void reveal() {
+        }
+    }
+
+    @PlaceName("foo")
+    public static class FooPlace extends TestPlace {
+        public FooPlace() {
+            super("foo");
+        }
+    }
+
+    // "Aa" and "BB" have the same hash code.
+    @PlaceName("Aa")
+    public static class AaPlace extends TestPlace {
+        public AaPlace() {
+            super("Aa");
+        }
+    }
+
+    @PlaceName("BB")
+    public static class BBPlace extends TestPlace {
+        public BBPlace() {
+            super("BB");
+        }
+    }
+
+    @GeneratePlaceRegistry({FooPlace.class, AaPlace.class, BBPlace.class})
+    public interface TestRegistry extends PlaceRegistry {
+    }
+
+    private static class CountingProvider<T> implements Provider<T> {
+
+        private final T value;
+
+        private int count;
+
+        CountingProvider(T value) {
+            this.value = value;
+        }
+
+        public T get() {
+            count++;
+            return value;
+        }
+    }
+
+    private FooPlace foo;
+
+    private CountingProvider<FooPlace> fooProvider;
+
+    private AaPlace aa;
+
+    private BBPlace bb;
+
+    private PlaceRegistry registry;
+
+    @Before
+    public void setUp() {
+
+        foo = new FooPlace();
+        fooProvider = new CountingProvider<FooPlace>(foo);
+        aa = new AaPlace();
+        bb = new BBPlace();
+        // The generated constructor takes the providers in order of place name.
+        registry = new PlaceRegistryTest_TestRegistryImpl(new CountingProvider<AaPlace>(aa),
+                new CountingProvider<BBPlace>(bb), fooProvider);
+    }
+
+    @Test
+    public void placesAreFoundByName() {
+
+        assertSame(foo, registry.getPlace("foo"));
+        assertSame(aa, registry.getPlace("Aa"));
+        assertSame(bb, registry.getPlace("BB"));
+        assertNull(registry.getPlace("bar"));
+        assertEquals(Arrays.asList("Aa", "BB", "foo"), registry.getPlaceNames());
+    }
+
+    @Test
+    public void placesAreRegisteredWhenFirstRequested() {
+
+        EventBus eventBus = new DefaultEventBus();
+        InMemoryHistoryAdapter history = new InMemoryHistoryAdapter();
+        DefaultPlaceManager placeManager = new DefaultPlaceManager(eventBus, new ParameterTokenFormatter(), history) {
+        };
+        placeManager.setPlaceRegistry(registry);
+
+        assertEquals(0, fooProvider.count);
+
+        history.newItem("foo;id=1", true);
+        history.newItem("bar", true);
+        history.newItem("foo;id=2", true);
+
+        assertEquals(1, fooProvider.count);
+        assertEquals(new PlaceRequest("foo").with("id", "2"), foo.lastRequest);
+        assertNull(aa.lastRequest);
+    }
+
+}
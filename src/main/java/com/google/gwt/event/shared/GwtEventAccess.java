@@ -0,0 +1,140 @@
+package com.google.gwt.event.shared;
+
+import com.google.gwt.core.client.GWT;
+
+/**
+ * Provides access to the methods of {@link GwtEvent} which are reserved for
+ * {@link HandlerManager}, so that other event bus implementations can fire
+ * events in the same way. This class is part of gwt-presenter, not GWT, and
+ * should not be used directly.
+ * <p/>
+ * GWT has no public API for this, so the class is declared in GWT's own
+ * package to reach the package-private and protected members of
+ * {@link GwtEvent}. It is the only class in gwt-presenter which does so, and
+ * only {@link net.customware.gwt.presenter.client.CopyOnWriteEventBus} uses
+ * it. Those members are not part of GWT's public API and may change in any
+ * release, so {@link #checkSupported()} refuses to run with GWT versions other
+ * than those in {@link #VERIFIED_VERSIONS}, which must be updated once a new
+ * version has been checked.
+ */
+public final class GwtEventAccess {
+
+    /**
+     * The GWT version prefixes this class has been checked against.
+     */
+    static final String[] VERIFIED_VERSIONS = { "1.6.", "1.7." };
+
+    private static boolean checked;
+
+    private GwtEventAccess() {
+    }
+
+    /**
+     * Checks that the GWT in use has been verified. In the GWT environment,
+     * its version must be one of {@link #VERIFIED_VERSIONS}. Outside it, eg.
+     * in a plain JVM, the version is not available, so the first call fires
+     * a probe event instead, to check that the members used here still
+     * behave as expected. Missing members fail when they are first linked.
+     *
+     * @throws IllegalStateException if the version has not been verified, or
+     *                               the probe does not behave as expected.
+     */
+    public static void checkSupported() {
+        if ( checked )
+            return;
+        if ( GWT.isClient() )
+            checkVersion( GWT.getVersion() );
+        else
+            checkProbe();
+        checked = true;
+    }
+
+    private static void checkVersion( String version ) {
+        if ( !isVerifiedVersion( version ) )
+            throw new IllegalStateException( "The event dispatch used by gwt-presenter has not been verified with GWT "
+                    + version + ". Use DefaultEventBus instead." );
+    }
+
+    private static void checkProbe() {
+        GwtEvent<EventHandler> probe = new GwtEvent<EventHandler>() {
+            private final Type<EventHandler> type = new Type<EventHandler>();
+
+            @Override
+            public Type<EventHandler> getAssociatedType() {
+                return type;
+            }
+
+            @Override
+            protected void dispatch( EventHandler handler ) {
+            }
+        };
+        Object source = new Object();
+        Object outer = beginFiring( probe, source );
+        boolean fired = outer == null && probe.getSource() == source && probe.isLive();
+        endFiring( probe, outer );
+        boolean killed = !probe.isLive();
+        Object inner = beginFiring( probe, source );
+        endFiring( probe, source );
+        boolean restored = inner == null && probe.isLive() && probe.getSource() == source;
+        if ( !fired || !killed || !restored )
+            throw new IllegalStateException( "The event dispatch used by gwt-presenter does not work with this "
+                    + "version of GWT. Use DefaultEventBus instead." );
+    }
+
+    /**
+     * @param version The GWT version, as returned by {@link GWT#getVersion()}.
+     * @return <code>true</code> if the version has been verified.
+     */
+    public static boolean isVerifiedVersion( String version ) {
+        if ( version == null )
+            return false;
+        for ( String verified : VERIFIED_VERSIONS ) {
+            if ( version.startsWith( verified ) )
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Prepares the event to be fired, reviving it if necessary.
+     *
+     * @param event  The event.
+     * @param source The source to set on the event.
+     * @return The previous source of the event, to pass to
+     *         {@link #endFiring(GwtEvent, Object)}.
+     */
+    public static Object beginFiring( GwtEvent<?> event, Object source ) {
+        if ( !event.isLive() ) {
+            event.revive();
+        }
+        Object oldSource = event.getSource();
+        event.setSource( source );
+        return oldSource;
+    }
+
+    /**
+     * Finishes firing the event. Like {@link HandlerManager}, the event is
+     * killed unless it was already being fired by another manager, in which
+     * case its previous source is restored.
+     *
+     * @param event     The event.
+     * @param oldSource The value returned by {@link #beginFiring(GwtEvent, Object)}.
+     */
+    public static void endFiring( GwtEvent<?> event, Object oldSource ) {
+        if ( oldSource == null ) {
+            event.kill();
+        } else {
+            event.setSource( oldSource );
+        }
+    }
+
+    /**
+     * Dispatches the event to the handler.
+     *
+     * @param event   The event.
+     * @param handler The handler, which must match the event's type.
+     */
+    public static <H extends EventHandler> void dispatch( GwtEvent<H> event, H handler ) {
+        event.dispatch( handler );
+    }
+}
@@ -0,0 +1,23 @@
+package net.customware.gwt.presenter.client;
+
+/**
+ * A source of the current time, which can be replaced in tests. Times are in
+ * milliseconds, as a <code>double</code> since <code>long</code> arithmetic
+ * is slow in compiled GWT code.
+ */
+public interface Clock {
+
+    /**
+     * The system clock, using {@link System#currentTimeMillis()}.
+     */
+    Clock SYSTEM = new Clock() {
+        public double currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * @return The current time, in milliseconds.
+     */
+    double currentTimeMillis();
+}
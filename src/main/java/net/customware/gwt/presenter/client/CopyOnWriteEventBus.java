@@ -0,0 +1,256 @@
+package net.customware.gwt.presenter.client;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.GwtEventAccess;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.event.shared.GwtEvent.Type;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * An {@link EventBus} which keeps the handlers for each event {@link Type} in
+ * a copy-on-write array. Firing an event iterates over the array as it was
+ * when firing started, so handlers can be added and removed during dispatch
+ * without queuing. Events with no handlers return immediately, without being
+ * touched.
+ * <p/>
+ * Removing a handler only marks its registration as removed, and the array is
+ * compacted once removed entries outnumber live ones, so removal takes
+ * constant time on average. A removed handler is not called again, even by an
+ * event which is already being fired.
+ * <p/>
+ * <b>This class depends on GWT internals.</b> GWT only lets its own
+ * <code>HandlerManager</code> dispatch events, so this class relies on
+ * {@link GwtEventAccess}, which gwt-presenter declares in GWT's own
+ * <code>com.google.gwt.event.shared</code> package to reach members of
+ * {@link GwtEvent} which are not part of GWT's public API. Any GWT release may
+ * change them, and environments which do not allow a package to be split
+ * across jars will reject the class. The constructor throws an
+ * {@link IllegalStateException} with a GWT version which has not been
+ * verified, or, outside the GWT environment, if a probe event does not behave
+ * as expected. Use {@link DefaultEventBus} if that happens; nothing else in
+ * gwt-presenter uses {@link GwtEventAccess}.
+ * <p/>
+ * For that reason it is never used unless asked for. To use it in place of
+ * {@link DefaultEventBus} with GIN, see
+ * {@link net.customware.gwt.presenter.client.gin.PresenterSetupModule#withCopyOnWriteEventBus(Class)}.
+ */
+@Singleton
+public class CopyOnWriteEventBus implements SourceEventBus {
+
+    private static final Registration[] NO_REGISTRATIONS = new Registration[0];
+
+    /**
+     * The handlers for a single type, or a single type and source.
+     */
+    private final class HandlerList {
+
+        private final Type<?> type;
+
+        private final Object source;
+
+        private Registration[] registrations = NO_REGISTRATIONS;
+
+        private int liveCount;
+
+        HandlerList( Type<?> type, Object source ) {
+            this.type = type;
+            this.source = source;
+        }
+
+        void add( Registration registration ) {
+            Registration[] added = new Registration[liveCount + 1];
+            copyLive( added );
+            added[liveCount] = registration;
+            registrations = added;
+            liveCount++;
+        }
+
+        void removed() {
+            liveCount--;
+            if ( liveCount == 0 ) {
+                registrations = NO_REGISTRATIONS;
+                listEmptied( this );
+            } else if ( registrations.length > liveCount * 2 ) {
+                Registration[] compacted = new Registration[liveCount];
+                copyLive( compacted );
+                registrations = compacted;
+            }
+        }
+
+        private void copyLive( Registration[] target ) {
+            int i = 0;
+            for ( Registration registration : registrations ) {
+                if ( !registration.removed )
+                    target[i++] = registration;
+            }
+        }
+    }
+
+    private static final class Registration implements HandlerRegistration {
+
+        private final HandlerList list;
+
+        private final EventHandler handler;
+
+        private boolean removed = false;
+
+        Registration( HandlerList list, EventHandler handler ) {
+            this.list = list;
+            this.handler = handler;
+        }
+
+        public void removeHandler() {
+            if ( !removed ) {
+                removed = true;
+                list.removed();
+            }
+        }
+    }
+
+    private final Map<Type<?>, HandlerList> handlers = new HashMap<Type<?>, HandlerList>();
+
+    private final Map<Type<?>, Map<Object, HandlerList>> sourceHandlers = new HashMap<Type<?>, Map<Object, HandlerList>>();
+
+    @Inject
+    public CopyOnWriteEventBus() {
+        GwtEventAccess.checkSupported();
+    }
+
+    public <H extends EventHandler> HandlerRegistration addHandler( Type<H> type, H handler ) {
+        HandlerList list = handlers.get( type );
+        if ( list == null ) {
+            list = new HandlerList( type, null );
+            handlers.put( type, list );
+        }
+        return register( list, handler );
+    }
+
+    public <H extends EventHandler> HandlerRegistration addHandlerToSource( Type<H> type, Object source, H handler ) {
+        Map<Object, HandlerList> lists = sourceHandlers.get( type );
+        if ( lists == null ) {
+            lists = new IdentityHashMap<Object, HandlerList>();
+            sourceHandlers.put( type, lists );
+        }
+        HandlerList list = lists.get( source );
+        if ( list == null ) {
+            list = new HandlerList( type, source );
+            lists.put( source, list );
+        }
+        return register( list, handler );
+    }
+
+    private HandlerRegistration register( HandlerList list, EventHandler handler ) {
+        if ( handler == null )
+            throw new NullPointerException( "The handler must not be null." );
+        Registration registration = new Registration( list, handler );
+        list.add( registration );
+        return registration;
+    }
+
+    private void listEmptied( HandlerList list ) {
+        if ( list.source == null ) {
+            if ( handlers.get( list.type ) == list )
+                handlers.remove( list.type );
+        } else {
+            Map<Object, HandlerList> lists = sourceHandlers.get( list.type );
+            if ( lists != null && lists.get( list.source ) == list ) {
+                lists.remove( list.source );
+                if ( lists.isEmpty() )
+                    sourceHandlers.remove( list.type );
+            }
+        }
+    }
+
+    public void fireEvent( GwtEvent<?> event ) {
+        HandlerList list = handlers.get( event.getAssociatedType() );
+        if ( list != null )
+            dispatchAll( event, NO_REGISTRATIONS, list.registrations );
+    }
+
+    public void fireEventFromSource( GwtEvent<?> event, Object source ) {
+        Type<?> type = event.getAssociatedType();
+        HandlerList list = handlers.get( type );
+        HandlerList sourceList = null;
+        if ( source != null ) {
+            Map<Object, HandlerList> lists = sourceHandlers.get( type );
+            if ( lists != null )
+                sourceList = lists.get( source );
+        }
+
+        if ( list != null || sourceList != null ) {
+            dispatchAll( event, sourceList == null ? NO_REGISTRATIONS : sourceList.registrations,
+                    list == null ? NO_REGISTRATIONS : list.registrations );
+        }
+    }
+
+    /**
+     * Dispatches the event to the source handlers, followed by the global
+     * handlers. The arrays are snapshots, so they are unaffected by handlers
+     * being added or removed while firing.
+     */
+    @SuppressWarnings("unchecked")
+    private void dispatchAll( GwtEvent<?> event, Registration[] sourceRegistrations, Registration[] registrations ) {
+        GwtEvent<EventHandler> firing = (GwtEvent<EventHandler>) event;
+        Object oldSource = GwtEventAccess.beginFiring( event, null );
+        try {
+            for ( Registration registration : sourceRegistrations ) {
+                if ( !registration.removed )
+                    dispatch( firing, registration.handler );
+            }
+            for ( Registration registration : registrations ) {
+                if ( !registration.removed )
+                    dispatch( firing, registration.handler );
+            }
+        } finally {
+            GwtEventAccess.endFiring( event, oldSource );
+        }
+    }
+
+    /**
+     * Dispatches the event to a single handler. Subclasses can override this
+     * to observe each handler call.
+     *
+     * @param event   The event.
+     * @param handler The handler.
+     */
+    protected <H extends EventHandler> void dispatch( GwtEvent<H> event, H handler ) {
+        GwtEventAccess.dispatch( event, handler );
+    }
+
+    @SuppressWarnings("unchecked")
+    public <H extends EventHandler> H getHandler( Type<H> type, int index ) {
+        HandlerList list = handlers.get( type );
+        if ( list != null && index >= 0 ) {
+            int live = 0;
+            for ( Registration registration : list.registrations ) {
+                if ( !registration.removed && live++ == index )
+                    return (H) registration.handler;
+            }
+        }
+        throw new IndexOutOfBoundsException( "Index: " + index );
+    }
+
+    public int getHandlerCount( Type<?> type ) {
+        HandlerList list = handlers.get( type );
+        return list == null ? 0 : list.liveCount;
+    }
+
+    public boolean isEventHandled( Type<?> type ) {
+        return handlers.containsKey( type ) || sourceHandlers.containsKey( type );
+    }
+
+    public boolean isEventHandled( Type<?> type, Object source ) {
+        if ( handlers.containsKey( type ) )
+            return true;
+        if ( source == null )
+            return false;
+        Map<Object, HandlerList> lists = sourceHandlers.get( type );
+        return lists != null && lists.containsKey( source );
+    }
+}
@@ -1,16 +1,104 @@
 package net.customware.gwt.presenter.client;
 
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
 import com.google.gwt.event.shared.HandlerManager;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.event.shared.GwtEvent.Type;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+/**
+ * The default {@link EventBus}, based on a {@link HandlerManager}. Handlers
+ * added for a specific source are kept in a separate {@link HandlerManager}
+ * for each source, indexed by identity, so events fired from a source only
+ * reach the handlers which are interested in it.
+ */
 @Singleton
-public class DefaultEventBus extends HandlerManager implements EventBus {
+public class DefaultEventBus extends HandlerManager implements SourceEventBus {
+
+    /**
+     * The handlers added for a single source.
+     */
+    private static class SourceHandlers {
+        final HandlerManager manager = new HandlerManager( null );
+
+        int count;
+    }
+
+    private final Map<Object, SourceHandlers> sourceHandlers = new IdentityHashMap<Object, SourceHandlers>();
+
+    private final Map<Type<?>, Integer> sourceHandlerCounts = new HashMap<Type<?>, Integer>();
 
     @Inject
     public DefaultEventBus() {
         super( null );
     }
 
+    public <H extends EventHandler> HandlerRegistration addHandlerToSource( final Type<H> type, final Object source,
+                                                                          H handler ) {
+        SourceHandlers existing = sourceHandlers.get( source );
+        if ( existing == null ) {
+            existing = new SourceHandlers();
+            sourceHandlers.put( source, existing );
+        }
+        final SourceHandlers handlers = existing;
+        final HandlerRegistration registration = handlers.manager.addHandler( type, handler );
+        handlers.count++;
+        changeSourceHandlerCount( type, 1 );
+
+        return new HandlerRegistration() {
+            private boolean removed = false;
+
+            public void removeHandler() {
+                if ( !removed ) {
+                    removed = true;
+                    registration.removeHandler();
+                    sourceHandlerRemoved( type, source, handlers );
+                }
+            }
+        };
+    }
+
+    private void sourceHandlerRemoved( Type<?> type, Object source, SourceHandlers handlers ) {
+        changeSourceHandlerCount( type, -1 );
+        if ( --handlers.count == 0 && sourceHandlers.get( source ) == handlers )
+            sourceHandlers.remove( source );
+    }
+
+    private void changeSourceHandlerCount( Type<?> type, int change ) {
+        Integer count = sourceHandlerCounts.get( type );
+        int newCount = ( count == null ? 0 : count ) + change;
+        if ( newCount > 0 )
+            sourceHandlerCounts.put( type, newCount );
+        else
+            sourceHandlerCounts.remove( type );
+    }
+
+    public void fireEventFromSource( GwtEvent<?> event, Object source ) {
+        SourceHandlers handlers = source == null ? null : sourceHandlers.get( source );
+        if ( handlers != null )
+            handlers.manager.fireEvent( event );
+        fireEvent( event );
+    }
+
+    @Override
+    public boolean isEventHandled( Type<?> type ) {
+        return super.isEventHandled( type ) || sourceHandlerCounts.containsKey( type );
+    }
+
+    public boolean isEventHandled( Type<?> type, Object source ) {
+        if ( getHandlerCount( type ) > 0 )
+            return true;
+        if ( source == null || !sourceHandlerCounts.containsKey( type ) )
+            return false;
+        SourceHandlers handlers = sourceHandlers.get( source );
+        return handlers != null && handlers.manager.getHandlerCount( type ) > 0;
+    }
+
 }
@@ -10,6 +10,9 @@ import com.google.gwt.event.shared.GwtEvent.Type;
  * 
  * Rather than being attached to a single object, an EventBus provides a central
  * pathway to send events across the whole application.
+ * <p/>
+ * Event buses which can also route events by source implement
+ * {@link SourceEventBus}.
  * 
  * @author David Peterson
  */
@@ -18,9 +21,21 @@ public interface EventBus {
 
     void fireEvent( GwtEvent<?> event );
 
+    /**
+     * Returns one of the handlers added via {@link #addHandler(Type, EventHandler)}.
+     * Handlers added for a specific source are not included.
+     */
     <H extends EventHandler> H getHandler( Type<H> type, int index );
 
+    /**
+     * Returns the number of handlers added via {@link #addHandler(Type, EventHandler)}.
+     * Handlers added for a specific source are not included.
+     */
     int getHandlerCount( Type<?> type );
 
+    /**
+     * Returns <code>true</code> if there are any handlers for the type,
+     * including those added for a specific source.
+     */
     boolean isEventHandled( Type<?> e );
 }
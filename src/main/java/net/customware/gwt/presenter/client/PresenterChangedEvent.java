@@ -10,8 +10,17 @@ public class PresenterChangedEvent extends GwtEvent<PresenterChangedHandler> {
         return TYPE;
     }
 
+    /**
+     * Fires the event from the presenter, so that handlers added for the
+     * presenter via {@link SourceEventBus#addHandlerToSource} receive it. The event
+     * is only created if something is listening for it.
+     *
+     * @param eventBus  The event bus.
+     * @param presenter The presenter.
+     */
     public static void fire( EventBus eventBus, Presenter presenter ) {
-        eventBus.fireEvent( new PresenterChangedEvent( presenter ) );
+        if ( SourceEvents.isHandled( eventBus, TYPE, presenter ) )
+            SourceEvents.fire( eventBus, new PresenterChangedEvent( presenter ), presenter );
     }
 
     private final Presenter presenter;
@@ -8,6 +8,11 @@ import com.google.gwt.event.shared.GwtEvent;
  * is particularly useful for situations where a presenter contains other
  * presenters and wants needs to reveal itself when a child presenter is
  * revealed.
+ * <p/>
+ * A {@link net.customware.gwt.presenter.client.widget.WidgetContainerPresenter}
+ * does not listen for this event. Its children tell it directly when they are
+ * revealed via {@link BasicPresenter#revealDisplay()}, so firing this event for
+ * a child from anywhere else does not reveal the child's container.
  *
  * @author David Peterson
  */
@@ -31,14 +36,18 @@ public class PresenterRevealedEvent extends GwtEvent<PresenterRevealedHandler> {
     }
 
     /**
-     * Fires the event into the provided {@link EventBus}.
+     * Fires the event into the provided {@link EventBus}, from the presenter,
+     * so that handlers added for the presenter via
+     * {@link SourceEventBus#addHandlerToSource} receive it. The event is only
+     * created if something is listening for it.
      *
      * @param eventBus   The event bus.
      * @param presenter  The presenter.
      * @param originator If <code>true</code>, this presenter was the originator for the request.
      */
     public static void fire( EventBus eventBus, Presenter presenter, boolean originator ) {
-        eventBus.fireEvent( new PresenterRevealedEvent( presenter, originator ) );
+        if ( SourceEvents.isHandled( eventBus, TYPE, presenter ) )
+            SourceEvents.fire( eventBus, new PresenterRevealedEvent( presenter, originator ), presenter );
     }
 
     private final Presenter presenter;
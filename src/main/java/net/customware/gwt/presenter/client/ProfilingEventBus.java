@@ -0,0 +1,302 @@
+package net.customware.gwt.presenter.client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.GwtEvent.Type;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * A {@link CopyOnWriteEventBus} which times every event it fires and every
+ * handler call. For each event {@link Type} it records the number of events
+ * fired, the number of handler calls, the total and maximum time spent firing,
+ * and the time spent in each handler class. Call {@link #getProfile()} for a
+ * snapshot, which can be printed with {@link EventProfile#toString()} or sent
+ * elsewhere. Install it with GIN using:
+ * <p/>
+ * <pre>
+ * install( new PresenterSetupModule( MyPlaceManager.class ).withCopyOnWriteEventBus( ProfilingEventBus.class ) );
+ * </pre>
+ * <p/>
+ * Like {@link CopyOnWriteEventBus}, it depends on GWT internals.
+ * <p/>
+ * Times include any events fired by the handlers themselves. In compiled GWT
+ * code the {@link Clock#SYSTEM} clock only has millisecond resolution, so
+ * short handlers are best compared by their totals.
+ */
+@Singleton
+public class ProfilingEventBus extends CopyOnWriteEventBus {
+
+    /**
+     * The time spent in a single handler class, for one event type.
+     */
+    public static class HandlerProfile {
+
+        private final String handlerClass;
+
+        private int callCount;
+
+        private double totalMillis;
+
+        private double maxMillis;
+
+        HandlerProfile( String handlerClass ) {
+            this.handlerClass = handlerClass;
+        }
+
+        HandlerProfile( HandlerProfile profile ) {
+            this( profile.handlerClass );
+            callCount = profile.callCount;
+            totalMillis = profile.totalMillis;
+            maxMillis = profile.maxMillis;
+        }
+
+        void record( double millis ) {
+            callCount++;
+            totalMillis += millis;
+            if ( millis > maxMillis )
+                maxMillis = millis;
+        }
+
+        public String getHandlerClass() {
+            return handlerClass;
+        }
+
+        public int getCallCount() {
+            return callCount;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+
+    /**
+     * The profile of a single event type.
+     */
+    public static class TypeProfile {
+
+        private final Type<?> type;
+
+        private final String eventClass;
+
+        private int fireCount;
+
+        private int handlerCallCount;
+
+        private double totalMillis;
+
+        private double maxMillis;
+
+        private final Map<String, HandlerProfile> handlers = new HashMap<String, HandlerProfile>();
+
+        TypeProfile( Type<?> type, String eventClass ) {
+            this.type = type;
+            this.eventClass = eventClass;
+        }
+
+        TypeProfile( TypeProfile profile ) {
+            this( profile.type, profile.eventClass );
+            fireCount = profile.fireCount;
+            handlerCallCount = profile.handlerCallCount;
+            totalMillis = profile.totalMillis;
+            maxMillis = profile.maxMillis;
+            for ( HandlerProfile handler : profile.handlers.values() ) {
+                handlers.put( handler.handlerClass, new HandlerProfile( handler ) );
+            }
+        }
+
+        void fired( double millis ) {
+            fireCount++;
+            totalMillis += millis;
+            if ( millis > maxMillis )
+                maxMillis = millis;
+        }
+
+        void handled( String handlerClass, double millis ) {
+            handlerCallCount++;
+            HandlerProfile handler = handlers.get( handlerClass );
+            if ( handler == null ) {
+                handler = new HandlerProfile( handlerClass );
+                handlers.put( handlerClass, handler );
+            }
+            handler.record( millis );
+        }
+
+        public Type<?> getType() {
+            return type;
+        }
+
+        /**
+         * @return The class name of the first event fired with this type.
+         */
+        public String getEventClass() {
+            return eventClass;
+        }
+
+        public int getFireCount() {
+            return fireCount;
+        }
+
+        /**
+         * @return The total number of handler calls for events of this type.
+         */
+        public int getHandlerCallCount() {
+            return handlerCallCount;
+        }
+
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        /**
+         * @param limit The maximum number of handlers to return.
+         * @return The handler classes, by total time, slowest first.
+         */
+        public List<HandlerProfile> getSlowestHandlers( int limit ) {
+            List<HandlerProfile> slowest = new ArrayList<HandlerProfile>( handlers.values() );
+            Collections.sort( slowest, new Comparator<HandlerProfile>() {
+                public int compare( HandlerProfile a, HandlerProfile b ) {
+                    return Double.compare( b.totalMillis, a.totalMillis );
+                }
+            } );
+            return slowest.size() > limit ? slowest.subList( 0, limit ) : slowest;
+        }
+    }
+
+    /**
+     * A snapshot of the profiles of all event types fired so far.
+     */
+    public static class EventProfile {
+
+        private final List<TypeProfile> types;
+
+        EventProfile( List<TypeProfile> types ) {
+            this.types = types;
+            Collections.sort( types, new Comparator<TypeProfile>() {
+                public int compare( TypeProfile a, TypeProfile b ) {
+                    return Double.compare( b.totalMillis, a.totalMillis );
+                }
+            } );
+        }
+
+        /**
+         * @return The event types, by total time, slowest first.
+         */
+        public List<TypeProfile> getTypes() {
+            return Collections.unmodifiableList( types );
+        }
+
+        /**
+         * @param type The event type.
+         * @return The profile for the type, or <code>null</code> if no events of the type were fired.
+         */
+        public TypeProfile getType( Type<?> type ) {
+            for ( TypeProfile profile : types ) {
+                if ( profile.type == type )
+                    return profile;
+            }
+            return null;
+        }
+
+        /**
+         * Lists each event type with its three slowest handler classes.
+         */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            for ( TypeProfile type : types ) {
+                out.append( type.eventClass ).append( ": fired " ).append( type.fireCount )
+                        .append( ", handlers called " ).append( type.handlerCallCount )
+                        .append( ", total " ).append( type.totalMillis ).append( "ms, max " )
+                        .append( type.maxMillis ).append( "ms\n" );
+                for ( HandlerProfile handler : type.getSlowestHandlers( 3 ) ) {
+                    out.append( "    " ).append( handler.handlerClass ).append( ": called " )
+                            .append( handler.callCount ).append( ", total " ).append( handler.totalMillis )
+                            .append( "ms, max " ).append( handler.maxMillis ).append( "ms\n" );
+                }
+            }
+            return out.toString();
+        }
+    }
+
+    private final Clock clock;
+
+    private final Map<Type<?>, TypeProfile> profiles = new HashMap<Type<?>, TypeProfile>();
+
+    @Inject
+    public ProfilingEventBus() {
+        this( Clock.SYSTEM );
+    }
+
+    /**
+     * @param clock The clock used to time events and handlers.
+     */
+    public ProfilingEventBus( Clock clock ) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void fireEvent( GwtEvent<?> event ) {
+        double start = clock.currentTimeMillis();
+        super.fireEvent( event );
+        profile( event ).fired( clock.currentTimeMillis() - start );
+    }
+
+    @Override
+    public void fireEventFromSource( GwtEvent<?> event, Object source ) {
+        double start = clock.currentTimeMillis();
+        super.fireEventFromSource( event, source );
+        profile( event ).fired( clock.currentTimeMillis() - start );
+    }
+
+    @Override
+    protected <H extends EventHandler> void dispatch( GwtEvent<H> event, H handler ) {
+        double start = clock.currentTimeMillis();
+        super.dispatch( event, handler );
+        profile( event ).handled( handler.getClass().getName(), clock.currentTimeMillis() - start );
+    }
+
+    private TypeProfile profile( GwtEvent<?> event ) {
+        Type<?> type = event.getAssociatedType();
+        TypeProfile profile = profiles.get( type );
+        if ( profile == null ) {
+            profile = new TypeProfile( type, event.getClass().getName() );
+            profiles.put( type, profile );
+        }
+        return profile;
+    }
+
+    /**
+     * @return A snapshot of the profiles recorded so far.
+     */
+    public EventProfile getProfile() {
+        List<TypeProfile> types = new ArrayList<TypeProfile>( profiles.size() );
+        for ( TypeProfile profile : profiles.values() ) {
+            types.add( new TypeProfile( profile ) );
+        }
+        return new EventProfile( types );
+    }
+
+    /**
+     * Clears the profiles recorded so far.
+     */
+    public void reset() {
+        profiles.clear();
+    }
+}
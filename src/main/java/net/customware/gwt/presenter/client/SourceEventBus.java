@@ -0,0 +1,62 @@
+package net.customware.gwt.presenter.client;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.event.shared.GwtEvent.Type;
+
+/**
+ * An {@link EventBus} which can also add handlers for a specific source
+ * object, so that events fired from a source only reach the handlers which
+ * are interested in it, plus the handlers for every source. Both
+ * {@link DefaultEventBus} and {@link CopyOnWriteEventBus} implement it.
+ * <p/>
+ * The library's events and places use it when the event bus implements it,
+ * and fall back to plain {@link EventBus} methods otherwise. See
+ * {@link SourceEvents}.
+ */
+public interface SourceEventBus extends EventBus {
+
+    /**
+     * Adds a handler which only receives events of the specified type when they
+     * are fired via {@link #fireEventFromSource(GwtEvent, Object)} with the
+     * same source object. Sources are compared by identity.
+     *
+     * @param type    The event type.
+     * @param source  The source object.
+     * @param handler The handler.
+     * @return The registration.
+     */
+    <H extends EventHandler> HandlerRegistration addHandlerToSource( Type<H> type, Object source, H handler );
+
+    /**
+     * Fires the event to the handlers which were added for the source via
+     * {@link #addHandlerToSource(Type, Object, EventHandler)}, and then to all
+     * handlers added via {@link #addHandler(Type, EventHandler)}.
+     *
+     * @param event  The event.
+     * @param source The source object.
+     */
+    void fireEventFromSource( GwtEvent<?> event, Object source );
+
+    /**
+     * Returns <code>true</code> if an event of the type fired from the source
+     * would reach any handlers. That is, if there are handlers added via
+     * {@link #addHandler(Type, EventHandler)}, or added for the source via
+     * {@link #addHandlerToSource(Type, Object, EventHandler)}. If the source is
+     * <code>null</code>, only the former are checked.
+     * <p/>
+     * Call this before creating an event to avoid building events which
+     * nothing is listening for. Eg:
+     * <p/>
+     * <pre>
+     * if ( eventBus.isEventHandled( FooEvent.getType(), source ) )
+     *     eventBus.fireEventFromSource( new FooEvent( source ), source );
+     * </pre>
+     *
+     * @param type   The event type.
+     * @param source The source the event would be fired from, or <code>null</code>.
+     * @return <code>true</code> if the event would be handled.
+     */
+    boolean isEventHandled( Type<?> type, Object source );
+}
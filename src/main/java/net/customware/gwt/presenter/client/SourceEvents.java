@@ -0,0 +1,60 @@
+package net.customware.gwt.presenter.client;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.event.shared.GwtEvent.Type;
+
+/**
+ * Adds handlers for, and fires events from, a source on any {@link EventBus}.
+ * If the event bus is a {@link SourceEventBus}, events are routed by source.
+ * Otherwise handlers are added for every source, and events are fired to all
+ * of them, so handlers should still check the event's source themselves.
+ */
+public final class SourceEvents {
+
+    private SourceEvents() {
+    }
+
+    /**
+     * Adds a handler for events from the source.
+     *
+     * @param eventBus The event bus.
+     * @param type     The event type.
+     * @param source   The source object.
+     * @param handler  The handler, which may also receive events from other sources.
+     * @return The registration.
+     */
+    public static <H extends EventHandler> HandlerRegistration addHandler( EventBus eventBus, Type<H> type,
+                                                                         Object source, H handler ) {
+        if ( eventBus instanceof SourceEventBus )
+            return ( (SourceEventBus) eventBus ).addHandlerToSource( type, source, handler );
+        return eventBus.addHandler( type, handler );
+    }
+
+    /**
+     * @param eventBus The event bus.
+     * @param type     The event type.
+     * @param source   The source the event would be fired from, or <code>null</code>.
+     * @return <code>true</code> if an event of the type fired from the source would be handled.
+     */
+    public static boolean isHandled( EventBus eventBus, Type<?> type, Object source ) {
+        if ( eventBus instanceof SourceEventBus )
+            return ( (SourceEventBus) eventBus ).isEventHandled( type, source );
+        return eventBus.isEventHandled( type );
+    }
+
+    /**
+     * Fires the event from the source.
+     *
+     * @param eventBus The event bus.
+     * @param event    The event.
+     * @param source   The source object.
+     */
+    public static void fire( EventBus eventBus, GwtEvent<?> event, Object source ) {
+        if ( eventBus instanceof SourceEventBus )
+            ( (SourceEventBus) eventBus ).fireEventFromSource( event, source );
+        else
+            eventBus.fireEvent( event );
+    }
+}
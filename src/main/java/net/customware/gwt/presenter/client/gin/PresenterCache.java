@@ -0,0 +1,212 @@
+package net.customware.gwt.presenter.client.gin;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Limits the number of presenters kept alive by {@link ProvidedPresenterPlace}s
+ * which share this cache. When there are more than {@link #getMaxLive()}
+ * live presenters, or a presenter has not been revealed for longer than
+ * {@link #getMaxIdleMillis()}, the least recently revealed presenter is
+ * unbound and released. The next request for its place creates a new one from
+ * the place's <code>Provider</code>.
+ * <p/>
+ * Released presenters can only be garbage collected if the provider creates a
+ * new presenter each time, so presenters used with a cache should not be bound
+ * as singletons. Idle presenters are only released when another presenter is
+ * revealed, or when {@link #evictIdle()} is called, eg. from a timer.
+ * <p/>
+ * Presenters which belong to a
+ * {@link net.customware.gwt.presenter.client.widget.WidgetContainerPresenter}
+ * are never released, since the container keeps using them. Such presenters
+ * must be the same instance as the container's, so they are usually bound as
+ * singletons. They are not counted as live presenters.
+ * <p/>
+ * Both limits are off by default. Eg:
+ * <p/>
+ * <pre>
+ * \@Inject
+ * public FooPlace( Provider&lt;FooPresenter&gt; presenter, PresenterCache cache ) {
+ *     super( presenter, cache );
+ * }
+ * </pre>
+ */
+@Singleton
+public class PresenterCache {
+
+    /**
+     * Turns a limit off.
+     */
+    public static final int UNLIMITED = 0;
+
+    /**
+     * The live places, least recently revealed first, with the time they were
+     * last revealed.
+     */
+    private final Map<ProvidedPresenterPlace<?>, Long> live = new LinkedHashMap<ProvidedPresenterPlace<?>, Long>(
+            16, 0.75f, true );
+
+    private int maxLive;
+
+    private long maxIdleMillis;
+
+    private int evictionCount;
+
+    private int idleEvictionCount;
+
+    private int rebuildCount;
+
+    @Inject
+    public PresenterCache() {
+        this( UNLIMITED, UNLIMITED );
+    }
+
+    /**
+     * @param maxLive       The maximum number of live presenters, or {@link #UNLIMITED}.
+     * @param maxIdleMillis The maximum time a presenter is kept without being
+     *                      revealed, or {@link #UNLIMITED}.
+     */
+    public PresenterCache( int maxLive, long maxIdleMillis ) {
+        this.maxLive = maxLive;
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    public int getMaxLive() {
+        return maxLive;
+    }
+
+    /**
+     * Sets the maximum number of live presenters. Extra presenters are
+     * released the next time a presenter is revealed.
+     *
+     * @param maxLive The maximum, or {@link #UNLIMITED}.
+     */
+    public void setMaxLive( int maxLive ) {
+        this.maxLive = maxLive;
+    }
+
+    public long getMaxIdleMillis() {
+        return maxIdleMillis;
+    }
+
+    /**
+     * Sets the maximum time a presenter is kept without being revealed.
+     *
+     * @param maxIdleMillis The maximum time, or {@link #UNLIMITED}.
+     */
+    public void setMaxIdleMillis( long maxIdleMillis ) {
+        this.maxIdleMillis = maxIdleMillis;
+    }
+
+    /**
+     * Called by a place when it has created its presenter.
+     *
+     * @param place   The place.
+     * @param rebuilt <code>true</code> if the place's previous presenter was released by this cache.
+     */
+    void created( ProvidedPresenterPlace<?> place, boolean rebuilt ) {
+        if ( rebuilt )
+            rebuildCount++;
+        revealed( place );
+    }
+
+    /**
+     * Called by a place when it has been revealed. Releases any presenters
+     * over the limits, other than the place's own.
+     *
+     * @param place The place.
+     */
+    void revealed( ProvidedPresenterPlace<?> place ) {
+        long now = currentTimeMillis();
+        if ( place.isReleasable() )
+            live.put( place, now );
+        else
+            live.remove( place );
+        evictIdle( now );
+        if ( maxLive != UNLIMITED ) {
+            Iterator<ProvidedPresenterPlace<?>> eldest = live.keySet().iterator();
+            while ( live.size() > maxLive && live.size() > 1 ) {
+                ProvidedPresenterPlace<?> evicted = eldest.next();
+                eldest.remove();
+                if ( evicted.releasePresenter() )
+                    evictionCount++;
+            }
+        }
+    }
+
+    /**
+     * Releases the presenters which have been idle for longer than the maximum
+     * idle time.
+     */
+    public void evictIdle() {
+        evictIdle( currentTimeMillis() );
+    }
+
+    private void evictIdle( long now ) {
+        if ( maxIdleMillis == UNLIMITED )
+            return;
+        Iterator<Map.Entry<ProvidedPresenterPlace<?>, Long>> eldest = live.entrySet().iterator();
+        while ( eldest.hasNext() ) {
+            Map.Entry<ProvidedPresenterPlace<?>, Long> entry = eldest.next();
+            if ( now - entry.getValue() <= maxIdleMillis )
+                break;
+            eldest.remove();
+            if ( entry.getKey().releasePresenter() ) {
+                evictionCount++;
+                idleEvictionCount++;
+            }
+        }
+    }
+
+    /**
+     * Releases all live presenters.
+     */
+    public void evictAll() {
+        Iterator<ProvidedPresenterPlace<?>> places = live.keySet().iterator();
+        while ( places.hasNext() ) {
+            ProvidedPresenterPlace<?> place = places.next();
+            places.remove();
+            if ( place.releasePresenter() )
+                evictionCount++;
+        }
+    }
+
+    /**
+     * @return The number of presenters currently alive.
+     */
+    public int getLiveCount() {
+        return live.size();
+    }
+
+    /**
+     * @return The number of presenters released, including idle ones.
+     */
+    public int getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return The number of presenters released because they were idle.
+     */
+    public int getIdleEvictionCount() {
+        return idleEvictionCount;
+    }
+
+    /**
+     * @return The number of presenters created again after being released.
+     */
+    public int getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /**
+     * @return The current time. Can be overridden for testing.
+     */
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
@@ -1,8 +1,14 @@
 package net.customware.gwt.presenter.client.gin;
 
 import com.google.gwt.inject.client.AbstractGinModule;
+import com.google.inject.Singleton;
+import net.customware.gwt.presenter.client.CopyOnWriteEventBus;
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.place.GwtHistoryAdapter;
+import net.customware.gwt.presenter.client.place.HistoryAdapter;
 import net.customware.gwt.presenter.client.place.ParameterTokenFormatter;
 import net.customware.gwt.presenter.client.place.PlaceManager;
+import net.customware.gwt.presenter.client.place.PlaceRegistry;
 import net.customware.gwt.presenter.client.place.TokenFormatter;
 
 /**
@@ -14,6 +20,12 @@ public class PresenterSetupModule extends AbstractGinModule {
 
     private final Class<? extends TokenFormatter> tokenFormatterClass;
 
+    private Class<? extends EventBus> eventBusClass;
+
+    private Class<? extends HistoryAdapter> historyAdapterClass = GwtHistoryAdapter.class;
+
+    private Class<? extends PlaceRegistry> placeRegistryClass;
+
     public PresenterSetupModule( Class<? extends PlaceManager> placeManagerClass ) {
         this( placeManagerClass, ParameterTokenFormatter.class );
     }
@@ -23,8 +35,96 @@ public class PresenterSetupModule extends AbstractGinModule {
         this.tokenFormatterClass = tokenFormatterClass;
     }
 
+    /**
+     * Binds {@link EventBus} to the specified implementation, as a singleton. Eg:
+     * <p/>
+     * <pre>
+     * install( new PresenterSetupModule( MyPlaceManager.class ).withEventBus( DefaultEventBus.class ) );
+     * </pre>
+     * <p/>
+     * If this is not called, the {@link EventBus} must be bound elsewhere.
+     * {@link CopyOnWriteEventBus} and its subclasses must be bound with
+     * {@link #withCopyOnWriteEventBus(Class)} instead.
+     *
+     * @param eventBusClass The event bus implementation.
+     * @return The module.
+     * @throws IllegalArgumentException if the class is a {@link CopyOnWriteEventBus}.
+     */
+    public PresenterSetupModule withEventBus( Class<? extends EventBus> eventBusClass ) {
+        if ( CopyOnWriteEventBus.class.isAssignableFrom( eventBusClass ) )
+            throw new IllegalArgumentException( eventBusClass.getName()
+                    + " depends on GWT internals, so must be bound with withCopyOnWriteEventBus()." );
+        this.eventBusClass = eventBusClass;
+        return this;
+    }
+
+    /**
+     * Binds {@link EventBus} to {@link CopyOnWriteEventBus} or a subclass, as
+     * a singleton. Eg:
+     * <p/>
+     * <pre>
+     * install( new PresenterSetupModule( MyPlaceManager.class ).withCopyOnWriteEventBus( CopyOnWriteEventBus.class ) );
+     * </pre>
+     * <p/>
+     * The class depends on members of GWT's event classes which are not part
+     * of GWT's public API, so it may stop working with any GWT release. Its
+     * constructor fails with an {@link IllegalStateException} if the GWT in
+     * use has not been verified. See {@link CopyOnWriteEventBus} for details.
+     *
+     * @param eventBusClass The event bus implementation.
+     * @return The module.
+     */
+    public PresenterSetupModule withCopyOnWriteEventBus( Class<? extends CopyOnWriteEventBus> eventBusClass ) {
+        this.eventBusClass = eventBusClass;
+        return this;
+    }
+
+    /**
+     * Binds {@link HistoryAdapter} to the specified implementation, as a
+     * singleton. By default, it is bound to {@link GwtHistoryAdapter}. Place
+     * managers can inject it and pass it to the
+     * {@link net.customware.gwt.presenter.client.place.DefaultPlaceManager}
+     * constructor.
+     *
+     * @param historyAdapterClass The history adapter implementation.
+     * @return The module.
+     */
+    public PresenterSetupModule withHistoryAdapter( Class<? extends HistoryAdapter> historyAdapterClass ) {
+        this.historyAdapterClass = historyAdapterClass;
+        return this;
+    }
+
+    /**
+     * Binds {@link PlaceRegistry} to the specified implementation, as a
+     * singleton. This is usually the implementation generated for an
+     * interface annotated with
+     * {@link net.customware.gwt.presenter.client.place.GeneratePlaceRegistry}. Eg:
+     * <p/>
+     * <pre>
+     * install( new PresenterSetupModule( MyPlaceManager.class ).withPlaceRegistry( MyPlaceRegistryImpl.class ) );
+     * </pre>
+     * <p/>
+     * Place managers can inject it and pass it to
+     * {@link net.customware.gwt.presenter.client.place.DefaultPlaceManager#setPlaceRegistry(PlaceRegistry)}.
+     *
+     * @param placeRegistryClass The place registry implementation.
+     * @return The module.
+     */
+    public PresenterSetupModule withPlaceRegistry( Class<? extends PlaceRegistry> placeRegistryClass ) {
+        this.placeRegistryClass = placeRegistryClass;
+        return this;
+    }
+
     @Override
     protected void configure() {
+        if ( eventBusClass != null )
+            bind( EventBus.class ).to( eventBusClass ).in( Singleton.class );
+
+        bind( HistoryAdapter.class ).to( historyAdapterClass ).in( Singleton.class );
+
+        if ( placeRegistryClass != null )
+            bind( PlaceRegistry.class ).to( placeRegistryClass ).in( Singleton.class );
+
         bind( TokenFormatter.class).to( tokenFormatterClass );
         
         bind( PlaceManager.class ).to( placeManagerClass );
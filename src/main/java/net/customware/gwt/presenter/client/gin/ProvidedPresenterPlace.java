@@ -1,9 +1,15 @@
 package net.customware.gwt.presenter.client.gin;
 
+import com.google.gwt.event.shared.HandlerRegistration;
 import com.google.inject.Provider;
+import net.customware.gwt.presenter.client.EventBus;
 import net.customware.gwt.presenter.client.Presenter;
+import net.customware.gwt.presenter.client.PresenterRevealedEvent;
+import net.customware.gwt.presenter.client.PresenterRevealedHandler;
+import net.customware.gwt.presenter.client.SourceEvents;
 import net.customware.gwt.presenter.client.place.PlaceRequest;
 import net.customware.gwt.presenter.client.place.PresenterPlace;
+import net.customware.gwt.presenter.client.widget.WidgetPresenter;
 
 /**
  * A place that represents a {@link Presenter}, constructed by using a {@link Provider}.
@@ -24,19 +30,118 @@ import net.customware.gwt.presenter.client.place.PresenterPlace;
  *      }
  * }
  * </pre>
+ * <p/>
+ * If a {@link PresenterCache} is provided, the place creates its presenter on
+ * demand, binds it, and keeps it until the cache releases it. It is then
+ * unbound, and a new one is created from the provider when next needed. Each
+ * time the presenter is revealed, by the place or directly, the cache counts
+ * it as recently used. A {@link WidgetPresenter} which belongs to a
+ * container is never released, since the container still shows it.
  *
  * @author David Peterson
  */
 public abstract class ProvidedPresenterPlace<T extends Presenter> extends PresenterPlace<T> {
     private final Provider<T> presenter;
 
+    private final PresenterCache cache;
+
+    private T cachedPresenter;
+
+    private boolean released;
+
+    private HandlerRegistration cacheRegistration;
+
     public ProvidedPresenterPlace( Provider<T> presenter ) {
+        this( presenter, null );
+    }
+
+    /**
+     * @param presenter The presenter provider.
+     * @param cache     The cache which decides when to release the presenter.
+     */
+    public ProvidedPresenterPlace( Provider<T> presenter, PresenterCache cache ) {
         this.presenter = presenter;
+        this.cache = cache;
     }
 
     @Override
     public T getPresenter() {
-        return presenter.get();
+        if ( cache == null ) {
+            T provided = presenter.get();
+            presenterCreated( provided );
+            return provided;
+        }
+
+        if ( cachedPresenter == null ) {
+            cachedPresenter = presenter.get();
+            if ( !cachedPresenter.isBound() )
+                cachedPresenter.bind();
+            presenterCreated( cachedPresenter );
+            cache.created( this, released );
+            released = false;
+        }
+        return cachedPresenter;
+    }
+
+    /**
+     * With a cache, returns the presenter only if it is alive.
+     */
+    @Override
+    protected T getCreatedPresenter() {
+        if ( cache == null )
+            return super.getCreatedPresenter();
+        return cachedPresenter;
+    }
+
+    /**
+     * With a cache, also lets the cache know each time the presenter is
+     * revealed, whoever reveals it.
+     */
+    @Override
+    protected void addPresenterHandlers( EventBus eventBus, final T presenter ) {
+        super.addPresenterHandlers( eventBus, presenter );
+        if ( cache != null ) {
+            cacheRegistration = SourceEvents.addHandler( eventBus, PresenterRevealedEvent.getType(), presenter,
+                    new PresenterRevealedHandler() {
+                        public void onPresenterRevealed( PresenterRevealedEvent event ) {
+                            if ( event.getPresenter() == presenter )
+                                cache.revealed( ProvidedPresenterPlace.this );
+                        }
+                    } );
+        }
+    }
+
+    @Override
+    protected void removePresenterHandlers() {
+        super.removePresenterHandlers();
+        if ( cacheRegistration != null ) {
+            cacheRegistration.removeHandler();
+            cacheRegistration = null;
+        }
+    }
+
+    /**
+     * @return <code>false</code> if the presenter belongs to a container, so
+     *         must not be released.
+     */
+    boolean isReleasable() {
+        return !( cachedPresenter instanceof WidgetPresenter<?> )
+                || ( (WidgetPresenter<?>) cachedPresenter ).getContainer() == null;
+    }
+
+    /**
+     * Called by the cache to unbind and release the presenter.
+     *
+     * @return <code>false</code> if there was no presenter, or it belongs to a container.
+     */
+    boolean releasePresenter() {
+        if ( cachedPresenter == null || !isReleasable() )
+            return false;
+        presenterReleased();
+        cachedPresenter.unbind();
+        cachedPresenter = null;
+        released = true;
+        return true;
     }
 
     /**
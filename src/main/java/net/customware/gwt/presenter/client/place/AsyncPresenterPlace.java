@@ -0,0 +1,165 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.Presenter;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * A {@link PresenterPlace} which loads its presenter asynchronously, when the
+ * place is first requested. Requests which arrive while the presenter is
+ * loading are queued, and once it has loaded, each one which has not been
+ * superseded by a later {@link PlaceNavigation} is prepared and revealed in
+ * turn. This allows the presenter's code to be left out of the initial
+ * download.
+ * <p/>
+ * Implement {@link #loadPresenter(AsyncCallback)} to load the presenter. With
+ * GWT 2's <code>GWT.runAsync</code> and an injected <code>Provider</code>,
+ * that looks like:
+ * <p/>
+ * <pre>
+ * protected void loadPresenter( final AsyncCallback&lt;FooPresenter&gt; callback ) {
+ *     GWT.runAsync( new RunAsyncCallback() {
+ *         public void onSuccess() {
+ *             FooPresenter presenter = presenterProvider.get();
+ *             presenter.bind();
+ *             callback.onSuccess( presenter );
+ *         }
+ *
+ *         public void onFailure( Throwable caught ) {
+ *             callback.onFailure( caught );
+ *         }
+ *     } );
+ * }
+ * </pre>
+ * <p/>
+ * Until the presenter has loaded, {@link #getPresenter()} returns
+ * <code>null</code> and requests created for the place have no parameters
+ * from the presenter.
+ *
+ * @param <T> The presenter type.
+ */
+public abstract class AsyncPresenterPlace<T extends Presenter> extends PresenterPlace<T> {
+
+    private T presenter;
+
+    private boolean loading;
+
+    private List<PlaceNavigation> pendingNavigations = new ArrayList<PlaceNavigation>();
+
+    private EventBus eventBus;
+
+    public AsyncPresenterPlace() {
+    }
+
+    /**
+     * Loads the presenter, and passes it to the callback once it is ready.
+     * This is only called once, unless loading fails.
+     *
+     * @param callback The callback.
+     */
+    protected abstract void loadPresenter( AsyncCallback<T> callback );
+
+    /**
+     * Called if the presenter could not be loaded. Any queued requests have
+     * been dropped, and the next request will try loading it again. The
+     * default implementation logs the failure.
+     *
+     * @param caught The failure.
+     */
+    protected void onLoadFailure( Throwable caught ) {
+        GWT.log( "Unable to load the presenter for the '" + getName() + "' place.", caught );
+    }
+
+    /**
+     * @return The presenter, or <code>null</code> if it has not been loaded yet.
+     */
+    @Override
+    public T getPresenter() {
+        return presenter;
+    }
+
+    /**
+     * @return <code>true</code> if the presenter has been loaded.
+     */
+    public boolean isLoaded() {
+        return presenter != null;
+    }
+
+    /**
+     * Handles the request if the presenter has been loaded. Otherwise the
+     * request is queued, and the presenter is loaded if it is not already
+     * loading.
+     */
+    @Override
+    protected void dispatchRequest( EventBus eventBus, PlaceNavigation navigation ) {
+        if ( presenter != null ) {
+            super.dispatchRequest( eventBus, navigation );
+        } else {
+            this.eventBus = eventBus;
+            pendingNavigations.add( navigation );
+            load();
+        }
+    }
+
+    /**
+     * Reveals the presenter, loading it first if necessary.
+     */
+    @Override
+    public void reveal() {
+        if ( presenter != null ) {
+            super.reveal();
+        } else {
+            load();
+        }
+    }
+
+    private void load() {
+        if ( loading )
+            return;
+        loading = true;
+        loadPresenter( new AsyncCallback<T>() {
+            public void onSuccess( T result ) {
+                loaded( result );
+            }
+
+            public void onFailure( Throwable caught ) {
+                loading = false;
+                pendingNavigations.clear();
+                onLoadFailure( caught );
+            }
+        } );
+    }
+
+    private void loaded( T result ) {
+        loading = false;
+        presenter = result;
+        presenterCreated( presenter );
+
+        if ( pendingNavigations.isEmpty() ) {
+            // Loaded by reveal().
+            super.reveal();
+        } else {
+            List<PlaceNavigation> navigations = pendingNavigations;
+            pendingNavigations = new ArrayList<PlaceNavigation>();
+            for ( PlaceNavigation navigation : navigations ) {
+                if ( !navigation.isSuperseded() )
+                    super.dispatchRequest( eventBus, navigation );
+            }
+        }
+    }
+
+    /**
+     * Returns the request unchanged if the presenter has not been loaded yet.
+     */
+    @Override
+    protected PlaceRequest prepareRequest( PlaceRequest request ) {
+        if ( presenter == null )
+            return request;
+        return super.prepareRequest( request );
+    }
+}
@@ -1,5 +1,6 @@
 package net.customware.gwt.presenter.client.place;
 
+import net.customware.gwt.presenter.client.EventBus;
 import net.customware.gwt.presenter.client.Presenter;
 
 /**
@@ -23,6 +24,15 @@ public abstract class BasicPresenterPlace<T extends Presenter> extends Presenter
         return presenter;
     }
 
+    /**
+     * Also registers the handlers for the presenter, which already exists.
+     */
+    @Override
+    public void addHandlers( EventBus eventBus ) {
+        super.addHandlers( eventBus );
+        presenterCreated( presenter );
+    }
+
     /**
      * Does nothing by default.
      */
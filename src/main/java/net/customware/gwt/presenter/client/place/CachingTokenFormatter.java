@@ -0,0 +1,128 @@
+package net.customware.gwt.presenter.client.place;
+
+/**
+ * A {@link TokenFormatter} which remembers the most recently used tokens and
+ * {@link PlaceRequest}s of another formatter, in both directions. This saves
+ * the {@link DefaultPlaceManager} from parsing and formatting the same values
+ * again each time a place changes or is revealed. To use it, wrap the
+ * formatter passed to the place manager. Eg:
+ * <p/>
+ * <pre>
+ * super( eventBus, new CachingTokenFormatter( tokenFormatter, 50 ), places );
+ * </pre>
+ * <p/>
+ * Failed conversions are not cached.
+ */
+public class CachingTokenFormatter implements TokenFormatter {
+
+    private static final int DEFAULT_SIZE = 100;
+
+    private final TokenFormatter formatter;
+
+    private final LruCache<String, PlaceRequest> requests;
+
+    private final LruCache<PlaceRequest, String> tokens;
+
+    private int parseHits;
+
+    private int parseMisses;
+
+    private int formatHits;
+
+    private int formatMisses;
+
+    public CachingTokenFormatter( TokenFormatter formatter ) {
+        this( formatter, DEFAULT_SIZE );
+    }
+
+    /**
+     * @param formatter The formatter to cache values from.
+     * @param maxSize   The maximum number of values to keep in each direction.
+     */
+    public CachingTokenFormatter( TokenFormatter formatter, int maxSize ) {
+        this.formatter = formatter;
+        this.requests = new LruCache<String, PlaceRequest>( maxSize );
+        this.tokens = new LruCache<PlaceRequest, String>( maxSize );
+    }
+
+    public String toHistoryToken( PlaceRequest placeRequest ) throws TokenFormatException {
+        String token = tokens.get( placeRequest );
+        if ( token != null ) {
+            formatHits++;
+        } else {
+            formatMisses++;
+            token = formatter.toHistoryToken( placeRequest );
+            tokens.put( placeRequest, token );
+        }
+        return token;
+    }
+
+    public PlaceRequest toPlaceRequest( String token ) throws TokenFormatException {
+        PlaceRequest request = requests.get( token );
+        if ( request != null ) {
+            parseHits++;
+        } else {
+            parseMisses++;
+            request = formatter.toPlaceRequest( token );
+            requests.put( token, request );
+        }
+        return request;
+    }
+
+    /**
+     * Removes all cached values. The hit and miss counts are not reset.
+     */
+    public void clear() {
+        requests.clear();
+        tokens.clear();
+    }
+
+    /**
+     * @return The maximum number of values kept in each direction.
+     */
+    public int getMaxSize() {
+        return requests.getMaxSize();
+    }
+
+    /**
+     * @return The number of tokens which were parsed from the cache.
+     */
+    public int getParseHits() {
+        return parseHits;
+    }
+
+    /**
+     * @return The number of tokens which were passed to the wrapped formatter.
+     */
+    public int getParseMisses() {
+        return parseMisses;
+    }
+
+    /**
+     * @return The number of requests which were formatted from the cache.
+     */
+    public int getFormatHits() {
+        return formatHits;
+    }
+
+    /**
+     * @return The number of requests which were passed to the wrapped formatter.
+     */
+    public int getFormatMisses() {
+        return formatMisses;
+    }
+
+    /**
+     * @return The total number of cache hits, in both directions.
+     */
+    public int getHitCount() {
+        return parseHits + formatHits;
+    }
+
+    /**
+     * @return The total number of cache misses, in both directions.
+     */
+    public int getMissCount() {
+        return parseMisses + formatMisses;
+    }
+}
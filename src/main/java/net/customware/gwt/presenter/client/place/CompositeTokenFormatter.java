@@ -0,0 +1,54 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link TokenFormatter} which passes the requests and tokens of each place
+ * to the {@link PlaceTokenCodec} for that place, and any others to a default
+ * formatter. To bind it with GIN, extend it with an injectable constructor. Eg:
+ * <p/>
+ * <pre>
+ * public class MyTokenFormatter extends CompositeTokenFormatter {
+ *     &#64;Inject
+ *     public MyTokenFormatter() {
+ *         super( new ParameterTokenFormatter(), ContactPlaceParams.CODEC, ContactListPlaceParams.CODEC );
+ *     }
+ * }
+ * </pre>
+ * <p/>
+ * The place name of a token is everything before the first ';', so the
+ * default formatter should use the same format as
+ * {@link ParameterTokenFormatter}.
+ */
+public class CompositeTokenFormatter implements TokenFormatter {
+
+    private final TokenFormatter defaultFormatter;
+
+    private final Map<String, PlaceTokenCodec> codecs = new HashMap<String, PlaceTokenCodec>();
+
+    /**
+     * @param defaultFormatter The formatter for places without a codec.
+     * @param codecs           The codecs.
+     */
+    public CompositeTokenFormatter( TokenFormatter defaultFormatter, PlaceTokenCodec... codecs ) {
+        this.defaultFormatter = defaultFormatter;
+        for ( PlaceTokenCodec codec : codecs ) {
+            this.codecs.put( codec.getPlaceName(), codec );
+        }
+    }
+
+    public String toHistoryToken( PlaceRequest placeRequest ) throws TokenFormatException {
+        return getFormatter( placeRequest.getName() ).toHistoryToken( placeRequest );
+    }
+
+    public PlaceRequest toPlaceRequest( String token ) throws TokenFormatException {
+        int split = token.indexOf( TokenScanner.PARAM_SEPARATOR );
+        return getFormatter( split == -1 ? token : token.substring( 0, split ) ).toPlaceRequest( token );
+    }
+
+    private TokenFormatter getFormatter( String placeName ) {
+        PlaceTokenCodec codec = codecs.get( placeName );
+        return codec != null ? codec : defaultFormatter;
+    }
+}
@@ -1,29 +1,78 @@
 package net.customware.gwt.presenter.client.place;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import net.customware.gwt.presenter.client.Clock;
 import net.customware.gwt.presenter.client.EventBus;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.event.logical.shared.ValueChangeEvent;
 import com.google.gwt.event.logical.shared.ValueChangeHandler;
-import com.google.gwt.user.client.History;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.DeferredCommand;
 
+/**
+ * The default {@link PlaceManager}. Each {@link PlaceRequestEvent} is routed
+ * directly to the registered place with the matching name, if that place
+ * returns <code>true</code> from {@link Place#isRoutedByName()}, or was
+ * created by the {@link PlaceRegistry}. Other places are offered every
+ * request, and handle it if {@link Place#matchesRequest(PlaceRequest)}
+ * returns <code>true</code>.
+ * <p/>
+ * The current history token is parsed each time a place changes, and requests
+ * are formatted each time a place is revealed. Wrap the {@link TokenFormatter}
+ * in a {@link CachingTokenFormatter} to avoid repeating that work.
+ * <p/>
+ * By default, History is updated immediately each time a place is revealed or
+ * changed. Call {@link #setCoalesceHistoryUpdates(boolean)} to only write the
+ * last update made in a single event loop turn.
+ * <p/>
+ * Each request starts a new {@link PlaceNavigation}, which supersedes the
+ * previous one. Places which are still preparing a superseded request should
+ * not reveal it.
+ * <p/>
+ * To measure how long navigations take, set a {@link NavigationMetricsSink}.
+ * Each navigation then records the time it reaches each
+ * {@link NavigationStage}, and is passed to the sink once History has been
+ * updated, or once it has been superseded.
+ * <p/>
+ * History is accessed through a {@link HistoryAdapter}. Unless one is provided,
+ * the browser's history is used via a {@link GwtHistoryAdapter}. Provide an
+ * {@link InMemoryHistoryAdapter} to navigate without a browser.
+ * <p/>
+ * Places can also be registered lazily from a {@link PlaceRegistry}. Each
+ * place is then only created and registered when a request with its name is
+ * first routed.
+ */
 public abstract class DefaultPlaceManager implements PlaceManager {
     private class PlaceEventHandler implements ValueChangeHandler<String>, PlaceRevealedHandler,
-        PlaceChangedHandler {
+        PlaceChangedHandler, PlaceRequestHandler {
+
+        public void onPlaceRequest( PlaceRequestEvent event ) {
+            routeRequest( event.getRequest(), event.isFromHistory() );
+        }
 
         public void onPlaceRevealed( PlaceRevealedEvent event ) {
-            updateHistory( event.getPlace() );
+            updateHistory( event.getPlace(), event.getRequest() );
         }
 
         public void onPlaceChanged( PlaceChangedEvent event ) {
             Place place = event.getPlace();
+            if ( pendingHistoryPlace != null ) {
+                // History still has the token from before the pending update,
+                // so only the pending place can change the location.
+                if ( place == pendingHistoryPlace )
+                    updateHistory( place, event.getRequest() );
+                return;
+            }
             try {
-                if ( place.matchesRequest( tokenFormatter.toPlaceRequest( History.getToken() ) ) ) {
+                if ( place.matchesRequest( tokenFormatter.toPlaceRequest( history.getToken() ) ) ) {
                     // Only update if the change comes from a place that matches
                     // the current location.
-                    updateHistory( event.getPlace() );
+                    updateHistory( place, event.getRequest() );
                 }
             } catch ( TokenFormatException e ) {
                 // Do nothing...
@@ -31,11 +80,16 @@ public abstract class DefaultPlaceManager implements PlaceManager {
         }
 
         /**
-         * Handles change events from {@link History}.
+         * Handles change events from the {@link HistoryAdapter}.
          */
         public void onValueChange( ValueChangeEvent<String> event ) {
             try {
-                PlaceRequestEvent.fire( eventBus, tokenFormatter.toPlaceRequest( event.getValue() ), true );
+                if ( metricsSink != null )
+                    tokenReceivedTime = clock.currentTimeMillis();
+                PlaceRequest request = tokenFormatter.toPlaceRequest( event.getValue() );
+                if ( metricsSink != null )
+                    tokenParsedTime = clock.currentTimeMillis();
+                PlaceRequestEvent.fire( eventBus, request, true );
             } catch ( TokenFormatException e ) {
                 GWT.log("Failure when firing a PlaceRequestEvent from " + event.getValue() +" .", e);
             }
@@ -47,20 +101,76 @@ public abstract class DefaultPlaceManager implements PlaceManager {
 
     private final TokenFormatter tokenFormatter;
 
-    private final HashSet<Place> registeredPlaces;
+    private final HistoryAdapter history;
+
+    private final Map<String, Place> namedPlaces;
+
+    /**
+     * The registered places which requests are routed to by name.
+     */
+    private final Map<String, Place> routedPlaces;
+
+    private final List<Place> matchingPlaces;
+
+    private PlaceRegistry placeRegistry;
+
+    private PlaceNavigation currentNavigation;
+
+    private int navigationCount;
+
+    private NavigationMetricsSink metricsSink;
+
+    private Clock clock = Clock.SYSTEM;
+
+    private double tokenReceivedTime = Double.NaN;
+
+    private double tokenParsedTime;
+
+    private boolean coalesceHistoryUpdates;
+
+    private Place pendingHistoryPlace;
+
+    private PlaceRequest pendingHistoryRequest;
+
+    private final Command historyUpdateCommand = new Command() {
+        public void execute() {
+            Place place = pendingHistoryPlace;
+            PlaceRequest request = pendingHistoryRequest;
+            pendingHistoryPlace = null;
+            pendingHistoryRequest = null;
+            if ( place != null ) {
+                updateHistory( request != null ? request : place.createRequest() );
+                historyUpdated( place );
+            }
+        }
+    };
 
     public DefaultPlaceManager( EventBus eventBus, TokenFormatter tokenFormatter ) {
         this( eventBus, tokenFormatter, (Place[]) null );
     }
 
     public DefaultPlaceManager( EventBus eventBus, TokenFormatter tokenFormatter, Place... places ) {
+        this( eventBus, tokenFormatter, new GwtHistoryAdapter(), places );
+    }
+
+    /**
+     * Creates a place manager which uses the provided history.
+     *
+     * @param eventBus       The event bus.
+     * @param tokenFormatter The token formatter.
+     * @param history        The history.
+     * @param places         The places to register.
+     */
+    public DefaultPlaceManager( EventBus eventBus, TokenFormatter tokenFormatter, HistoryAdapter history,
+                                Place... places ) {
         this.eventBus = eventBus;
         this.tokenFormatter = tokenFormatter;
+        this.history = history;
 
         PlaceEventHandler handler = new PlaceEventHandler();
 
         // Register ourselves with the History API.
-        History.addValueChangeHandler( handler );
+        history.addValueChangeHandler( handler );
 
         // Listen for manual place change events.
         eventBus.addHandler( PlaceChangedEvent.getType(), handler );
@@ -68,7 +178,12 @@ public abstract class DefaultPlaceManager implements PlaceManager {
         // Listen for place revelation requests.
         eventBus.addHandler( PlaceRevealedEvent.getType(), handler );
 
-        registeredPlaces = new HashSet<Place>();
+        // Route place requests to the registered places.
+        eventBus.addHandler( PlaceRequestEvent.getType(), handler );
+
+        namedPlaces = new HashMap<String, Place>();
+        routedPlaces = new HashMap<String, Place>();
+        matchingPlaces = new ArrayList<Place>();
 
         if ( places != null ) {
             for ( Place place : places ) {
@@ -78,25 +193,220 @@ public abstract class DefaultPlaceManager implements PlaceManager {
     }
 
     public boolean registerPlace( Place place ) {
-        if ( !registeredPlaces.contains( place ) ) {
+        return registerPlace( place, place.isRoutedByName() );
+    }
+
+    private boolean registerPlace( Place place, boolean routedByName ) {
+        String name = place.getName();
+        if ( !namedPlaces.containsKey( name ) ) {
+            place.routedByManager = true;
             place.addHandlers( eventBus );
-            registeredPlaces.add( place );
+            namedPlaces.put( name, place );
+            if ( routedByName )
+                routedPlaces.put( name, place );
+            else
+                matchingPlaces.add( place );
             return true;
         }
         return false;
     }
 
     public boolean deregisterPlace( Place place ) {
-        if ( !registeredPlaces.contains( place ) ) {
-            place.removeHandlers( eventBus );
-            registeredPlaces.remove( place );
+        Place registered = namedPlaces.remove( place.getName() );
+        if ( registered != null ) {
+            registered.removeHandlers( eventBus );
+            registered.routedByManager = false;
+            if ( routedPlaces.remove( registered.getName() ) == null )
+                matchingPlaces.remove( registered );
             return true;
         }
         return false;
     }
 
-    private void updateHistory( Place place ) {
-        updateHistory( place.createRequest() );
+    /**
+     * Starts a new navigation, superseding the previous one, and passes the
+     * request to the place registered under the request's name, and then to
+     * any places which have custom matching logic. If handling the request
+     * starts another navigation, no more places are offered this one. If no
+     * place matches the request, the navigation is reported straight away.
+     *
+     * @param request     The request.
+     * @param fromHistory <code>true</code> if the request was parsed from a history token.
+     */
+    private void routeRequest( PlaceRequest request, boolean fromHistory ) {
+        if ( currentNavigation != null ) {
+            currentNavigation.supersede();
+            report( currentNavigation );
+        }
+        PlaceNavigation navigation = new PlaceNavigation( ++navigationCount, request );
+        currentNavigation = navigation;
+        if ( metricsSink != null )
+            startTiming( navigation, fromHistory );
+
+        String name = request.getName();
+        Place place = routedPlaces.get( name );
+        if ( place == null && placeRegistry != null && !namedPlaces.containsKey( name ) )
+            place = registerFromRegistry( name );
+        boolean matched = false;
+        if ( place != null ) {
+            matched = true;
+            navigation.mark( NavigationStage.PLACE_MATCHED );
+            place.dispatchRequest( eventBus, navigation );
+        }
+
+        if ( !matchingPlaces.isEmpty() ) {
+            // Copy, in case a place registers or deregisters others while handling the request.
+            for ( Place matching : matchingPlaces.toArray( new Place[matchingPlaces.size()] ) ) {
+                if ( navigation.isSuperseded() )
+                    break;
+                if ( matching.matchesRequest( request ) ) {
+                    matched = true;
+                    navigation.mark( NavigationStage.PLACE_MATCHED );
+                    matching.dispatchRequest( eventBus, navigation );
+                }
+            }
+        }
+
+        if ( !matched )
+            report( navigation );
+    }
+
+    private Place registerFromRegistry( String name ) {
+        Place place = placeRegistry.getPlace( name );
+        if ( place == null )
+            return null;
+        if ( !name.equals( place.getName() ) ) {
+            GWT.log( "The registry's place for '" + name + "' is named '" + place.getName() + "'.", null );
+            return null;
+        }
+        return registerPlace( place, true ) ? place : null;
+    }
+
+    private void startTiming( PlaceNavigation navigation, boolean fromHistory ) {
+        if ( fromHistory && !Double.isNaN( tokenReceivedTime ) ) {
+            navigation.startTiming( clock, tokenReceivedTime );
+            navigation.mark( NavigationStage.TOKEN_RECEIVED, tokenReceivedTime );
+            navigation.mark( NavigationStage.TOKEN_PARSED, tokenParsedTime );
+        } else {
+            navigation.startTiming( clock, clock.currentTimeMillis() );
+        }
+        tokenReceivedTime = Double.NaN;
+    }
+
+    /**
+     * Completes the place's navigation, if it is the current one.
+     */
+    private void historyUpdated( Place place ) {
+        PlaceNavigation navigation = place.getNavigation();
+        if ( navigation != null && navigation == currentNavigation && navigation.isTimed() ) {
+            navigation.mark( NavigationStage.HISTORY_UPDATED );
+            report( navigation );
+        }
+    }
+
+    private void report( PlaceNavigation navigation ) {
+        if ( metricsSink != null && navigation.report() )
+            metricsSink.onNavigationCompleted( navigation );
+    }
+
+    /**
+     * Sets the registry which places are created from. If a request is routed
+     * with a name which no registered place has, the place is looked up in the
+     * registry and registered. Places from the registry are always routed by
+     * name, so {@link Place#matchesRequest(PlaceRequest)} is not called for
+     * them. Places with custom matching logic should be registered directly
+     * instead.
+     *
+     * @param placeRegistry The registry, or <code>null</code> for none.
+     */
+    public void setPlaceRegistry( PlaceRegistry placeRegistry ) {
+        this.placeRegistry = placeRegistry;
+    }
+
+    public PlaceRegistry getPlaceRegistry() {
+        return placeRegistry;
+    }
+
+    /**
+     * Sets the sink which timed navigations are passed to. Navigations are
+     * only timed while a sink is set.
+     *
+     * @param metricsSink The sink, or <code>null</code> to stop timing.
+     */
+    public void setNavigationMetricsSink( NavigationMetricsSink metricsSink ) {
+        this.metricsSink = metricsSink;
+    }
+
+    public NavigationMetricsSink getNavigationMetricsSink() {
+        return metricsSink;
+    }
+
+    /**
+     * Sets the clock used to time navigations. Defaults to {@link Clock#SYSTEM}.
+     *
+     * @param clock The clock.
+     */
+    public void setClock( Clock clock ) {
+        this.clock = clock;
+    }
+
+    /**
+     * @return The latest navigation, or <code>null</code> if no request has been routed yet.
+     */
+    protected PlaceNavigation getCurrentNavigation() {
+        return currentNavigation;
+    }
+
+    /**
+     * Sets whether History updates are coalesced. If <code>true</code>, only
+     * the last place revealed or changed during the current event loop turn is
+     * written to History, once, via a deferred command. While an update is
+     * pending, changes from any other place are ignored, since they belong to
+     * the location being replaced. If <code>false</code> (the default),
+     * History is updated immediately for each event.
+     *
+     * @param coalesce If <code>true</code>, coalesce updates.
+     */
+    public void setCoalesceHistoryUpdates( boolean coalesce ) {
+        this.coalesceHistoryUpdates = coalesce;
+    }
+
+    /**
+     * @return <code>true</code> if History updates are coalesced.
+     * @see #setCoalesceHistoryUpdates(boolean)
+     */
+    public boolean isCoalesceHistoryUpdates() {
+        return coalesceHistoryUpdates;
+    }
+
+    /**
+     * Schedules the command which writes coalesced History updates. By default
+     * it is added as a {@link DeferredCommand}.
+     *
+     * @param command The command to run at the end of the event loop turn.
+     */
+    protected void scheduleHistoryUpdate( Command command ) {
+        DeferredCommand.addCommand( command );
+    }
+
+    /**
+     * Updates History for the place.
+     *
+     * @param place   The place.
+     * @param request The request the place has already created, or <code>null</code> to create it.
+     */
+    private void updateHistory( Place place, PlaceRequest request ) {
+        if ( coalesceHistoryUpdates ) {
+            // Unless provided, the request is only created when the update is written.
+            boolean scheduled = pendingHistoryPlace != null;
+            pendingHistoryPlace = place;
+            pendingHistoryRequest = request;
+            if ( !scheduled )
+                scheduleHistoryUpdate( historyUpdateCommand );
+        } else {
+            updateHistory( request != null ? request : place.createRequest() );
+            historyUpdated( place );
+        }
     }
 
     // Updates History if it has changed, without firing another
@@ -104,9 +414,9 @@ public abstract class DefaultPlaceManager implements PlaceManager {
     private void updateHistory( PlaceRequest request ) {
         try {
             String requestToken = tokenFormatter.toHistoryToken( request );
-            String historyToken = History.getToken();
+            String historyToken = history.getToken();
             if ( historyToken == null || !historyToken.equals( requestToken ) )
-                History.newItem( requestToken, false );
+                history.newItem( requestToken, false );
         } catch ( TokenFormatException e ) {
             // Do nothing.
         }
@@ -119,11 +429,18 @@ public abstract class DefaultPlaceManager implements PlaceManager {
      * @return <code>true</code>
      */
     public boolean fireCurrentPlace() {
-		String current = History.getToken();
+        String current = history.getToken();
         if ( current != null && current.trim().length() > 0 ) {
-            History.fireCurrentHistoryState();
+            history.fireCurrentHistoryState();
             return true;
         }
         return false;
     }
+
+    /**
+     * @return The history used by this place manager.
+     */
+    protected HistoryAdapter getHistory() {
+        return history;
+    }
 }
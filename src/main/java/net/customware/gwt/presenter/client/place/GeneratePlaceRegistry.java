@@ -0,0 +1,38 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface extending {@link PlaceRegistry} for which an
+ * implementation is generated at compile time. Each listed place class must
+ * be annotated with {@link PlaceName}. Eg:
+ * <p/>
+ * <pre>
+ * &#64;GeneratePlaceRegistry( { ContactPlace.class, ContactListPlace.class } )
+ * public interface MyPlaceRegistry extends PlaceRegistry {}
+ * </pre>
+ * <p/>
+ * The implementation is named after the interface with an <code>Impl</code>
+ * suffix, eg. <code>MyPlaceRegistryImpl</code>. It is created by the
+ * annotation processor in the <code>gwt-presenter-processor</code> jar, which
+ * <code>javac</code> runs automatically when the jar is on the compile
+ * classpath. The implementation's constructor takes a
+ * {@link com.google.inject.Provider} for each place, so it can be bound with
+ * {@link net.customware.gwt.presenter.client.gin.PresenterSetupModule#withPlaceRegistry(Class)},
+ * and no place is created until its name is requested. Every listed place is
+ * still compiled into the application.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GeneratePlaceRegistry {
+
+    /**
+     * @return The place classes to include.
+     */
+    Class<? extends Place>[] value();
+}
@@ -0,0 +1,43 @@
+package net.customware.gwt.presenter.client.place;
+
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.user.client.History;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * The default {@link HistoryAdapter}, which passes everything through to the
+ * browser's {@link History}.
+ */
+@Singleton
+public class GwtHistoryAdapter implements HistoryAdapter {
+
+    @Inject
+    public GwtHistoryAdapter() {
+    }
+
+    public HandlerRegistration addValueChangeHandler( ValueChangeHandler<String> handler ) {
+        return History.addValueChangeHandler( handler );
+    }
+
+    public String getToken() {
+        return History.getToken();
+    }
+
+    public void newItem( String token, boolean issueEvent ) {
+        History.newItem( token, issueEvent );
+    }
+
+    public void fireCurrentHistoryState() {
+        History.fireCurrentHistoryState();
+    }
+
+    public void back() {
+        History.back();
+    }
+
+    public void forward() {
+        History.forward();
+    }
+}
@@ -0,0 +1,53 @@
+package net.customware.gwt.presenter.client.place;
+
+import com.google.gwt.event.logical.shared.ValueChangeEvent;
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
+import com.google.gwt.event.shared.HandlerRegistration;
+
+/**
+ * The history operations used by the {@link DefaultPlaceManager}. The
+ * {@link GwtHistoryAdapter} uses the browser's history via
+ * {@link com.google.gwt.user.client.History}, while the
+ * {@link InMemoryHistoryAdapter} keeps it in memory, so places can be
+ * navigated without a browser.
+ */
+public interface HistoryAdapter {
+
+    /**
+     * Adds a handler which is notified with a {@link ValueChangeEvent} when the
+     * current token changes.
+     *
+     * @param handler The handler.
+     * @return The handler registration.
+     */
+    HandlerRegistration addValueChangeHandler( ValueChangeHandler<String> handler );
+
+    /**
+     * @return The current history token, or an empty string if there is none.
+     */
+    String getToken();
+
+    /**
+     * Adds a new history entry with the token, if it is different to the
+     * current token.
+     *
+     * @param token      The new token.
+     * @param issueEvent If <code>true</code>, a {@link ValueChangeEvent} is fired.
+     */
+    void newItem( String token, boolean issueEvent );
+
+    /**
+     * Fires a {@link ValueChangeEvent} with the current token.
+     */
+    void fireCurrentHistoryState();
+
+    /**
+     * Goes back one entry in the history.
+     */
+    void back();
+
+    /**
+     * Goes forward one entry in the history.
+     */
+    void forward();
+}
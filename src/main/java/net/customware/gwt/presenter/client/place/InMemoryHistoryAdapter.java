@@ -0,0 +1,141 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gwt.event.logical.shared.HasValueChangeHandlers;
+import com.google.gwt.event.logical.shared.ValueChangeEvent;
+import com.google.gwt.event.logical.shared.ValueChangeHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerManager;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.inject.Inject;
+
+/**
+ * A {@link HistoryAdapter} which keeps the history in memory, with back and
+ * forward stacks like a browser. It does not need a browser, so a
+ * {@link DefaultPlaceManager} using it can be driven from plain JVM tests,
+ * benchmarks and load tests. Eg:
+ * <p/>
+ * <pre>
+ * InMemoryHistoryAdapter history = new InMemoryHistoryAdapter();
+ * PlaceManager placeManager = new MyPlaceManager( eventBus, new ParameterTokenFormatter(), history );
+ * history.newItem( &quot;foo;id=1&quot;, true );
+ * history.back();
+ * </pre>
+ * <p/>
+ * Like a browser, it only keeps a limited number of entries, so it can be used
+ * for long runs. The oldest entries are dropped first.
+ */
+public class InMemoryHistoryAdapter implements HistoryAdapter, HasValueChangeHandlers<String> {
+
+    /**
+     * The default maximum number of entries kept before the current token.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100;
+
+    private final HandlerManager handlerManager = new HandlerManager( this );
+
+    private final List<String> backStack = new ArrayList<String>();
+
+    private final List<String> forwardStack = new ArrayList<String>();
+
+    private final int maxEntries;
+
+    private String token;
+
+    @Inject
+    public InMemoryHistoryAdapter() {
+        this( "" );
+    }
+
+    /**
+     * @param token The initial token.
+     */
+    public InMemoryHistoryAdapter( String token ) {
+        this( token, DEFAULT_MAX_ENTRIES );
+    }
+
+    /**
+     * @param token      The initial token.
+     * @param maxEntries The maximum number of entries kept before the current token.
+     */
+    public InMemoryHistoryAdapter( String token, int maxEntries ) {
+        if ( maxEntries < 0 )
+            throw new IllegalArgumentException( "The maximum number of entries must not be negative." );
+        this.token = token == null ? "" : token;
+        this.maxEntries = maxEntries;
+    }
+
+    public HandlerRegistration addValueChangeHandler( ValueChangeHandler<String> handler ) {
+        return handlerManager.addHandler( ValueChangeEvent.getType(), handler );
+    }
+
+    public void fireEvent( GwtEvent<?> event ) {
+        handlerManager.fireEvent( event );
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Adds the token to the history, if it is different to the current token.
+     * The current token is pushed onto the back stack and the forward stack is
+     * cleared.
+     */
+    public void newItem( String token, boolean issueEvent ) {
+        token = token == null ? "" : token;
+        if ( !token.equals( this.token ) ) {
+            backStack.add( this.token );
+            if ( backStack.size() > maxEntries )
+                backStack.remove( 0 );
+            forwardStack.clear();
+            this.token = token;
+            if ( issueEvent )
+                fireCurrentHistoryState();
+        }
+    }
+
+    public void fireCurrentHistoryState() {
+        ValueChangeEvent.fire( this, token );
+    }
+
+    /**
+     * Goes back to the previous token and fires a {@link ValueChangeEvent}, if
+     * there is a previous token.
+     */
+    public void back() {
+        if ( !backStack.isEmpty() ) {
+            forwardStack.add( token );
+            token = backStack.remove( backStack.size() - 1 );
+            fireCurrentHistoryState();
+        }
+    }
+
+    /**
+     * Goes forward to the next token and fires a {@link ValueChangeEvent}, if
+     * there is a next token.
+     */
+    public void forward() {
+        if ( !forwardStack.isEmpty() ) {
+            backStack.add( token );
+            token = forwardStack.remove( forwardStack.size() - 1 );
+            fireCurrentHistoryState();
+        }
+    }
+
+    /**
+     * @return The number of entries before the current token.
+     */
+    public int getBackCount() {
+        return backStack.size();
+    }
+
+    /**
+     * @return The number of entries after the current token.
+     */
+    public int getForwardCount() {
+        return forwardStack.size();
+    }
+}
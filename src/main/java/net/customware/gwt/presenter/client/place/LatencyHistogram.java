@@ -0,0 +1,103 @@
+package net.customware.gwt.presenter.client.place;
+
+/**
+ * Counts latencies in fixed millisecond buckets, along with the total and
+ * maximum. Recording a value takes constant time and no allocation.
+ */
+public class LatencyHistogram {
+
+    /**
+     * The upper bounds of the buckets, in milliseconds. Values over the last
+     * bound are counted in an extra overflow bucket.
+     */
+    private static final double[] BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000 };
+
+    private final int[] counts = new int[BOUNDS.length + 1];
+
+    private int count;
+
+    private double total;
+
+    private double max;
+
+    /**
+     * Records a latency.
+     *
+     * @param millis The latency, in milliseconds.
+     */
+    public void record( double millis ) {
+        int bucket = 0;
+        while ( bucket < BOUNDS.length && millis > BOUNDS[bucket] )
+            bucket++;
+        counts[bucket]++;
+        count++;
+        total += millis;
+        if ( millis > max )
+            max = millis;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * @return The number of buckets, including the overflow bucket.
+     */
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * @param bucket The bucket index.
+     * @return The upper bound of the bucket, in milliseconds, or
+     *         {@link Double#POSITIVE_INFINITY} for the overflow bucket.
+     */
+    public double getBucketBound( int bucket ) {
+        return bucket < BOUNDS.length ? BOUNDS[bucket] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param bucket The bucket index.
+     * @return The number of latencies recorded in the bucket.
+     */
+    public int getBucketValue( int bucket ) {
+        return counts[bucket];
+    }
+
+    /**
+     * Returns an upper estimate of the percentile, which is the bound of the
+     * bucket it falls in, or the maximum if that is lower.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The estimate, in milliseconds, or 0 if nothing has been recorded.
+     */
+    public double getPercentile( double percentile ) {
+        if ( count == 0 )
+            return 0;
+        double target = count * percentile / 100;
+        int seen = 0;
+        for ( int bucket = 0; bucket < counts.length; bucket++ ) {
+            seen += counts[bucket];
+            if ( seen >= target && seen > 0 )
+                return Math.min( getBucketBound( bucket ), max );
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + getMean() + "ms, p95=" + getPercentile( 95 ) + "ms, max=" + max + "ms";
+    }
+}
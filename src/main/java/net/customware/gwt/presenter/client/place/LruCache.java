@@ -0,0 +1,34 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A map which keeps at most <code>maxSize</code> entries, removing the least
+ * recently used entry when it is full.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+
+    LruCache( int maxSize ) {
+        super( 16, 0.75f, true );
+        if ( maxSize < 1 )
+            throw new IllegalArgumentException( "The maximum size must be at least 1." );
+        this.maxSize = maxSize;
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry( Map.Entry<K, V> eldest ) {
+        return size() > maxSize;
+    }
+}
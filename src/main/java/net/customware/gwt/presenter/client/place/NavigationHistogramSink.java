@@ -0,0 +1,87 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link NavigationMetricsSink} which keeps a {@link LatencyHistogram} for
+ * each place and stage, of the time from the start of the navigation to the
+ * end of that stage. Superseded and unmatched navigations are only counted.
+ */
+public class NavigationHistogramSink implements NavigationMetricsSink {
+
+    private static final NavigationStage[] STAGES = NavigationStage.values();
+
+    private final Map<String, LatencyHistogram[]> histograms = new HashMap<String, LatencyHistogram[]>();
+
+    private int supersededCount;
+
+    private int unmatchedCount;
+
+    public void onNavigationCompleted( PlaceNavigation navigation ) {
+        if ( navigation.isSuperseded() ) {
+            supersededCount++;
+            return;
+        }
+        if ( !navigation.hasReached( NavigationStage.PLACE_MATCHED ) ) {
+            unmatchedCount++;
+            return;
+        }
+
+        String name = navigation.getRequest().getName();
+        LatencyHistogram[] stages = histograms.get( name );
+        if ( stages == null ) {
+            stages = new LatencyHistogram[STAGES.length];
+            for ( int i = 0; i < stages.length; i++ ) {
+                stages[i] = new LatencyHistogram();
+            }
+            histograms.put( name, stages );
+        }
+
+        for ( NavigationStage stage : STAGES ) {
+            if ( navigation.hasReached( stage ) )
+                stages[stage.ordinal()].record( navigation.getElapsed( stage ) );
+        }
+    }
+
+    /**
+     * @return The names of the places with recorded navigations.
+     */
+    public Set<String> getPlaceNames() {
+        return histograms.keySet();
+    }
+
+    /**
+     * Returns the histogram of the time from the start of navigations to the
+     * place until the end of the stage.
+     *
+     * @param placeName The place name.
+     * @param stage     The stage.
+     * @return The histogram, or <code>null</code> if no navigations to the place have been recorded.
+     */
+    public LatencyHistogram getHistogram( String placeName, NavigationStage stage ) {
+        LatencyHistogram[] stages = histograms.get( placeName );
+        return stages == null ? null : stages[stage.ordinal()];
+    }
+
+    /**
+     * @return The number of navigations which were superseded before completing.
+     */
+    public int getSupersededCount() {
+        return supersededCount;
+    }
+
+    /**
+     * @return The number of navigations which no place matched.
+     */
+    public int getUnmatchedCount() {
+        return unmatchedCount;
+    }
+
+    public void clear() {
+        histograms.clear();
+        supersededCount = 0;
+        unmatchedCount = 0;
+    }
+}
@@ -0,0 +1,18 @@
+package net.customware.gwt.presenter.client.place;
+
+/**
+ * Receives timed {@link PlaceNavigation}s from a {@link DefaultPlaceManager}.
+ * See {@link DefaultPlaceManager#setNavigationMetricsSink(NavigationMetricsSink)}.
+ */
+public interface NavigationMetricsSink {
+
+    /**
+     * Called once for each navigation: when History has been updated for it,
+     * when no place matched its request, or when it has been superseded by a
+     * later navigation. Unmatched navigations have not reached
+     * {@link NavigationStage#PLACE_MATCHED}.
+     *
+     * @param navigation The navigation, with its stage times.
+     */
+    void onNavigationCompleted( PlaceNavigation navigation );
+}
@@ -0,0 +1,40 @@
+package net.customware.gwt.presenter.client.place;
+
+/**
+ * The stages of a {@link PlaceNavigation}, in the order they happen. Not
+ * every navigation passes through every stage. Requests which do not come
+ * from a history token skip the first two, and only {@link PresenterPlace}s
+ * record the presenter stages.
+ */
+public enum NavigationStage {
+
+    /**
+     * A new history token was received.
+     */
+    TOKEN_RECEIVED,
+
+    /**
+     * The token was parsed by the {@link TokenFormatter}.
+     */
+    TOKEN_PARSED,
+
+    /**
+     * The request was matched to a place.
+     */
+    PLACE_MATCHED,
+
+    /**
+     * The place's presenter was prepared for the request.
+     */
+    PRESENTER_PREPARED,
+
+    /**
+     * The presenter's display was revealed.
+     */
+    DISPLAY_REVEALED,
+
+    /**
+     * The revealed place was written to History.
+     */
+    HISTORY_UPDATED
+}
@@ -1,78 +1,76 @@
 package net.customware.gwt.presenter.client.place;
 
-import java.util.Set;
-
 /**
  * Formats tokens from String values into PlaceRequest values and back again. This implementation
  * parses the token format like so:
  *
  * <pre>[name](;param=value)*</pre>
+ *
+ * Any ';' or '=' characters in parameter names and values are escaped by doubling them. Tokens
+ * are scanned in a single pass by a {@link TokenScanner}, without using regular expressions.
+ * <p/>
+ * The format is unchanged from earlier versions, so existing tokens and bookmarks are read the
+ * same way. This includes its one ambiguity: a separator at the start of a name or value is
+ * doubled next to the separator before it, so it may be read back as part of the previous
+ * field. Eg. the value <code>=x</code> for <code>a</code> is written as <code>a===x</code>, and
+ * read back as the name <code>a=</code> with the value <code>x</code>.
+ * <p/>
+ * Parameters are always written in the canonical order of {@link PlaceRequest}, sorted by name,
+ * so equal requests are always formatted as equal tokens.
+ * <p/>
+ * If a {@link StringPool} is provided, the place and parameter names of parsed requests are
+ * interned in it. Parameter values and formatted tokens are not, since they are often unique,
+ * and would push the names out of the pool. Use a {@link CachingTokenFormatter} to reuse tokens.
  */
 public class ParameterTokenFormatter implements TokenFormatter {
 
-    private static final String PARAM_SEPARATOR = ";";
-
-    private static final String PARAM_PATTERN = PARAM_SEPARATOR + "(?!" + PARAM_SEPARATOR + ")";
-
-    private static final String PARAM_ESCAPE = PARAM_SEPARATOR + PARAM_SEPARATOR;
+    private final StringPool pool;
 
-    private static final String VALUE_SEPARATOR = "=";
-
-    private static final String VALUE_PATTERN = VALUE_SEPARATOR + "(?!" + VALUE_SEPARATOR + ")";
-
-    private static final String VALUE_ESCAPE = VALUE_SEPARATOR + VALUE_SEPARATOR;
+    public ParameterTokenFormatter() {
+        this( null );
+    }
 
-    public ParameterTokenFormatter() {}
+    /**
+     * @param pool The pool to intern names in, or <code>null</code> for none.
+     */
+    public ParameterTokenFormatter( StringPool pool ) {
+        this.pool = pool;
+    }
 
     public String toHistoryToken( PlaceRequest placeRequest ) {
+        int count = placeRequest.getParameterCount();
+        if ( count == 0 )
+            return placeRequest.getName();
+
         StringBuilder out = new StringBuilder();
         out.append( placeRequest.getName() );
-
-        Set<String> params = placeRequest.getParameterNames();
-        if ( params != null && params.size() > 0 ) {
-            for ( String name : params ) {
-                out.append( PARAM_SEPARATOR );
-                out.append( escape( name ) ).append( VALUE_SEPARATOR )
-                    .append( escape( placeRequest.getParameter( name, null )) );
-            }
+        for ( int i = 0; i < count; i++ ) {
+            TokenScanner.appendParameter( out, placeRequest.getParameterName( i ), placeRequest.getParameterValue( i ) );
         }
         return out.toString();
     }
 
     public PlaceRequest toPlaceRequest( String token ) throws TokenFormatException {
-        PlaceRequest req = null;
+        TokenScanner scanner = new TokenScanner( token );
+        if ( !scanner.hasParameters() )
+            return new PlaceRequest( intern( scanner.getPlaceName() ) );
 
-        int split = token.indexOf( PARAM_SEPARATOR );
-        if ( split == 0 ) {
-            throw new TokenFormatException( "Place name is missing." );
-        } else if ( split == -1 ) {
-            req = new PlaceRequest( token );
-        } else if ( split >= 0 ) {
-            req = new PlaceRequest( token.substring( 0, split ) );
-            String paramsChunk = token.substring( split + 1 );
-            String[] paramTokens = paramsChunk.split( PARAM_PATTERN );
-            for ( String paramToken : paramTokens ) {
-                String[] param = paramToken.split( VALUE_PATTERN );
-                if ( param.length == 1)
-                	req = req.with( unescape( param[0] ), "");
-                else if ( param.length == 2 )
-                	req = req.with( unescape( param[0] ), unescape( param[1] ) );
-                else
-                    throw new TokenFormatException( "Bad parameter: Parameters require a single '"
-                            + VALUE_SEPARATOR + "' between the key and value." );
-                
-            }
+        PlaceRequest.Builder builder = new PlaceRequest.Builder( intern( scanner.getPlaceName() ) );
+        while ( scanner.nextParameter() ) {
+            builder.with( intern( scanner.getParameterName() ), scanner.getParameterValue() );
         }
-
-        return req;
-
+        return builder.build();
     }
 
-    private static String escape( String value ) {
-        return value.replaceAll( PARAM_SEPARATOR, PARAM_ESCAPE ).replaceAll( VALUE_SEPARATOR, VALUE_ESCAPE );
+    private String intern( String value ) {
+        return pool == null ? value : pool.intern( value );
     }
 
-    private static String unescape( String value ) {
-        return value.replaceAll( PARAM_ESCAPE, PARAM_SEPARATOR ).replaceAll( VALUE_ESCAPE, VALUE_SEPARATOR );
+    /**
+     * @return The pool names are interned in, or <code>null</code> if there is none.
+     */
+    public StringPool getPool() {
+        return pool;
     }
+
 }
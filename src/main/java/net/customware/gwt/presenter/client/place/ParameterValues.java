@@ -0,0 +1,84 @@
+package net.customware.gwt.presenter.client.place;
+
+/**
+ * Converts parameter values for the classes generated from
+ * {@link PlaceParameters}. Each method throws a {@link TokenFormatException}
+ * if the value is malformed, or if it is <code>null</code> and required.
+ */
+public final class ParameterValues {
+
+    private ParameterValues() {
+    }
+
+    public static String toString( String name, String value, boolean required ) throws TokenFormatException {
+        if ( value == null && required )
+            throw missing( name );
+        return value;
+    }
+
+    public static int toInt( String name, String value ) throws TokenFormatException {
+        return toInteger( name, value, true );
+    }
+
+    public static Integer toInteger( String name, String value, boolean required ) throws TokenFormatException {
+        if ( value == null ) {
+            if ( required )
+                throw missing( name );
+            return null;
+        }
+        try {
+            return Integer.valueOf( value );
+        } catch ( NumberFormatException e ) {
+            throw malformed( name, value, e );
+        }
+    }
+
+    public static long toLong( String name, String value ) throws TokenFormatException {
+        return toLong( name, value, true );
+    }
+
+    public static Long toLong( String name, String value, boolean required ) throws TokenFormatException {
+        if ( value == null ) {
+            if ( required )
+                throw missing( name );
+            return null;
+        }
+        try {
+            return Long.valueOf( value );
+        } catch ( NumberFormatException e ) {
+            throw malformed( name, value, e );
+        }
+    }
+
+    public static boolean toBoolean( String name, String value ) throws TokenFormatException {
+        return toBoolean( name, value, true );
+    }
+
+    public static Boolean toBoolean( String name, String value, boolean required ) throws TokenFormatException {
+        if ( value == null ) {
+            if ( required )
+                throw missing( name );
+            return null;
+        }
+        if ( "true".equals( value ) )
+            return Boolean.TRUE;
+        if ( "false".equals( value ) )
+            return Boolean.FALSE;
+        throw malformed( name, value, null );
+    }
+
+    /**
+     * @return The value as a string, or <code>null</code> if it is <code>null</code>.
+     */
+    public static String format( Object value ) {
+        return value == null ? null : value.toString();
+    }
+
+    private static TokenFormatException missing( String name ) {
+        return new TokenFormatException( "The '" + name + "' parameter is missing." );
+    }
+
+    private static TokenFormatException malformed( String name, String value, Throwable cause ) {
+        return new TokenFormatException( "The '" + name + "' parameter has an invalid value: " + value, cause );
+    }
+}
@@ -1,8 +1,9 @@
 package net.customware.gwt.presenter.client.place;
 
-import com.google.gwt.event.shared.HandlerRegistration;
 import net.customware.gwt.presenter.client.EventBus;
 
+import com.google.gwt.event.shared.HandlerRegistration;
+
 /**
  * A place represents a particular 'bookmark' or location inside the
  * application. A place is stateful - it may represent a location with it's
@@ -17,8 +18,19 @@ import net.customware.gwt.presenter.client.EventBus;
  * @author David Peterson
  */
 public abstract class Place {
+
+    private PlaceNavigation navigation;
+
+    /**
+     * <code>true</code> while the place is registered with a
+     * {@link DefaultPlaceManager}, which routes requests to it directly.
+     */
+    boolean routedByManager;
+
     private HandlerRegistration placeRequestRegistration;
 
+    private int navigationCount;
+
     public Place() {
     }
 
@@ -60,6 +72,10 @@ public abstract class Place {
     /**
      * This method is checked before calling
      * {@link #handleRequest(PlaceRequest)}.
+     * <p/>
+     * Unless {@link #isRoutedByName()} is overridden to return
+     * <code>true</code>, or the place is created by a {@link PlaceRegistry},
+     * this is called for every request.
      *
      * @param request The request to check.
      * @return <code>true</code> if the ID matches this place's name.
@@ -68,6 +84,50 @@ public abstract class Place {
         return getName().equals( request.getName() );
     }
 
+    /**
+     * Returns <code>true</code> if {@link #matchesRequest(PlaceRequest)} only
+     * matches requests with the same name as this place, which allows the
+     * {@link DefaultPlaceManager} to route requests to it directly by name,
+     * instead of offering it every request. Places which do not override
+     * {@link #matchesRequest(PlaceRequest)} can override this to return
+     * <code>true</code>. The default implementation returns
+     * <code>false</code>, so places with custom matching logic keep working.
+     * Places created by a {@link PlaceRegistry} are always routed by name.
+     *
+     * @return <code>true</code> if the place can be looked up by name.
+     */
+    public boolean isRoutedByName() {
+        return false;
+    }
+
+    /**
+     * Called by the {@link PlaceManager} when a request has been routed to this
+     * place. The default implementation calls
+     * {@link #handleRequest(PlaceRequest)} and then fires a
+     * {@link PlaceRevealedEvent}, unless handling the request started another
+     * navigation.
+     *
+     * @param eventBus   The event bus.
+     * @param navigation The navigation to the matching request.
+     */
+    protected void dispatchRequest( EventBus eventBus, PlaceNavigation navigation ) {
+        this.navigation = navigation;
+        handleRequest( navigation.getRequest() );
+        if ( !navigation.isSuperseded() )
+            PlaceRevealedEvent.fire( eventBus, this );
+    }
+
+    /**
+     * Returns the navigation most recently routed to this place. Places which
+     * handle requests asynchronously can check whether it has been superseded
+     * before revealing anything.
+     *
+     * @return The navigation, or <code>null</code> if no request has been routed here.
+     */
+    protected PlaceNavigation getNavigation() {
+        return navigation;
+    }
+
     /**
      * Returns a new request for this place in its current state. This method
      * calls {@link #prepareRequest(PlaceRequest)} before returning.
@@ -101,17 +161,21 @@ public abstract class Place {
      * This method is called if the place should register itself with the event bus. Only one
      * instance of any given concrete Place should be registered. The {@link PlaceManager} should
      * enforce this however, so in general, don't call this method directly.
+     * <p/>
+     * Unless the place is registered with a {@link DefaultPlaceManager}, which routes requests
+     * itself, this adds a handler which passes each matching {@link PlaceRequestEvent} to
+     * {@link #dispatchRequest(EventBus, PlaceNavigation)}.
      *
      * @param eventBus The event bus.
      */
     public void addHandlers( final EventBus eventBus ) {
+        if ( routedByManager || placeRequestRegistration != null )
+            return;
         placeRequestRegistration = eventBus.addHandler( PlaceRequestEvent.getType(), new PlaceRequestHandler() {
             public void onPlaceRequest( PlaceRequestEvent event ) {
                 PlaceRequest request = event.getRequest();
-                if ( matchesRequest( request ) ) {
-                    handleRequest( request );
-                    eventBus.fireEvent( new PlaceRevealedEvent( Place.this ) );
-                }
+                if ( matchesRequest( request ) )
+                    dispatchRequest( eventBus, new PlaceNavigation( ++navigationCount, request ) );
             }
         } );
     }
@@ -2,6 +2,7 @@ package net.customware.gwt.presenter.client.place;
 
 import com.google.gwt.event.shared.GwtEvent;
 import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.SourceEvents;
 
 /**
  * This event is triggered when any {@link Place} has changed state. It may or
@@ -19,14 +20,45 @@ public class PlaceChangedEvent extends GwtEvent<PlaceChangedHandler> {
         return TYPE;
     }
 
+    /**
+     * Fires the event from the place. The event is only created if something
+     * is listening for it.
+     *
+     * @param eventBus The event bus.
+     * @param place    The place.
+     */
     public static void fire( EventBus eventBus, Place place ) {
-        eventBus.fireEvent( new PlaceChangedEvent( place ) );
+        fire( eventBus, place, null );
+    }
+
+    /**
+     * Fires the event from the place, with the request it has already created
+     * for its new state, so that handlers do not need to create it again.
+     *
+     * @param eventBus The event bus.
+     * @param place    The place.
+     * @param request  The request from {@link Place#createRequest()}, or <code>null</code>.
+     */
+    public static void fire( EventBus eventBus, Place place, PlaceRequest request ) {
+        if ( SourceEvents.isHandled( eventBus, getType(), place ) )
+            SourceEvents.fire( eventBus, new PlaceChangedEvent( place, request ), place );
     }
 
     private final Place place;
 
+    private final PlaceRequest request;
+
     public PlaceChangedEvent( Place place ) {
+        this( place, null );
+    }
+
+    /**
+     * @param place   The place.
+     * @param request The request from {@link Place#createRequest()}, or <code>null</code>.
+     */
+    public PlaceChangedEvent( Place place, PlaceRequest request ) {
         this.place = place;
+        this.request = request;
     }
 
     @Override
@@ -42,4 +74,13 @@ public class PlaceChangedEvent extends GwtEvent<PlaceChangedHandler> {
     public Place getPlace() {
         return place;
     }
+
+    /**
+     * @return The request the place created for its new state, or
+     *         <code>null</code> if it was not provided, in which case handlers
+     *         should call {@link Place#createRequest()}.
+     */
+    public PlaceRequest getRequest() {
+        return request;
+    }
 }
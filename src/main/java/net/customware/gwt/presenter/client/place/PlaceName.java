@@ -0,0 +1,33 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the name of a {@link Place} class, so that it can be listed in a
+ * {@link GeneratePlaceRegistry} and routed to without being created first.
+ * The value must match the value returned by {@link Place#getName()}. Eg:
+ * <p/>
+ * <pre>
+ * &#64;PlaceName( "contact" )
+ * public class ContactPlace extends ProvidedPresenterPlace&lt;ContactPresenter&gt; {
+ *     ...
+ *     public String getName() {
+ *         return "contact";
+ *     }
+ * }
+ * </pre>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface PlaceName {
+
+    /**
+     * @return The place name.
+     */
+    String value();
+}
@@ -0,0 +1,164 @@
+package net.customware.gwt.presenter.client.place;
+
+import net.customware.gwt.presenter.client.Clock;
+
+/**
+ * A single navigation to a {@link PlaceRequest}. The {@link DefaultPlaceManager}
+ * numbers each navigation, and marks the previous one as superseded when a new
+ * one starts. Places which prepare their presenters asynchronously should
+ * check {@link #isSuperseded()} before revealing, so that only the latest
+ * request is revealed when the user navigates quickly. Eg:
+ * <p/>
+ * <pre>
+ * final PlaceNavigation navigation = getNavigation();
+ * service.load( id, new AsyncCallback&lt;Foo&gt;() {
+ *     public void onSuccess( Foo result ) {
+ *         if ( !navigation.isSuperseded() ) {
+ *             presenter.setFoo( result );
+ *             presenter.revealDisplay();
+ *         }
+ *     }
+ *     ...
+ * } );
+ * </pre>
+ * <p/>
+ * If the place manager has a {@link NavigationMetricsSink}, the navigation
+ * also records when it reaches each {@link NavigationStage}.
+ */
+public class PlaceNavigation {
+
+    private final int sequence;
+
+    private final PlaceRequest request;
+
+    private boolean superseded;
+
+    private Clock clock;
+
+    private double startTime;
+
+    private double[] stageTimes;
+
+    private boolean reported;
+
+    PlaceNavigation( int sequence, PlaceRequest request ) {
+        this.sequence = sequence;
+        this.request = request;
+    }
+
+    /**
+     * Starts recording stage times.
+     *
+     * @param clock     The clock.
+     * @param startTime The time the navigation started.
+     */
+    void startTiming( Clock clock, double startTime ) {
+        this.clock = clock;
+        this.startTime = startTime;
+        this.stageTimes = new double[NavigationStage.values().length];
+        for ( int i = 0; i < stageTimes.length; i++ ) {
+            stageTimes[i] = Double.NaN;
+        }
+    }
+
+    /**
+     * @return <code>true</code> if stage times are being recorded.
+     */
+    public boolean isTimed() {
+        return clock != null;
+    }
+
+    /**
+     * Records the current time as the end of the stage, if the navigation is
+     * being timed. Places which prepare or reveal presenters in their own way
+     * can call this to mark the {@link NavigationStage#PRESENTER_PREPARED} and
+     * {@link NavigationStage#DISPLAY_REVEALED} stages. Once the navigation
+     * has been superseded or reported, it is no longer current, and stages
+     * are not recorded, eg. when a presenter is later revealed directly.
+     *
+     * @param stage The stage.
+     */
+    public void mark( NavigationStage stage ) {
+        if ( isRecording() )
+            stageTimes[stage.ordinal()] = clock.currentTimeMillis();
+    }
+
+    void mark( NavigationStage stage, double time ) {
+        if ( isRecording() )
+            stageTimes[stage.ordinal()] = time;
+    }
+
+    private boolean isRecording() {
+        return clock != null && !superseded && !reported;
+    }
+
+    /**
+     * @return The time the navigation started, in milliseconds.
+     */
+    public double getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @param stage The stage.
+     * @return <code>true</code> if the navigation was timed and reached the stage.
+     */
+    public boolean hasReached( NavigationStage stage ) {
+        return stageTimes != null && !Double.isNaN( stageTimes[stage.ordinal()] );
+    }
+
+    /**
+     * @param stage The stage.
+     * @return The time the stage ended, in milliseconds, or {@link Double#NaN} if it was not reached.
+     */
+    public double getTime( NavigationStage stage ) {
+        return stageTimes == null ? Double.NaN : stageTimes[stage.ordinal()];
+    }
+
+    /**
+     * @param stage The stage.
+     * @return The time from the start of the navigation to the end of the
+     *         stage, in milliseconds, or {@link Double#NaN} if it was not reached.
+     */
+    public double getElapsed( NavigationStage stage ) {
+        return getTime( stage ) - startTime;
+    }
+
+    /**
+     * Marks the navigation as reported, returning <code>false</code> if it
+     * already was, or is not timed.
+     */
+    boolean report() {
+        if ( clock == null || reported )
+            return false;
+        reported = true;
+        return true;
+    }
+
+    /**
+     * @return The sequence number. Later navigations have higher numbers.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    public PlaceRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * @return <code>true</code> if a later navigation has started.
+     */
+    public boolean isSuperseded() {
+        return superseded;
+    }
+
+    void supersede() {
+        superseded = true;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + request + ( superseded ? " (superseded)" : "" );
+    }
+}
@@ -0,0 +1,44 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a typed parameter of a place. See {@link PlaceParameters}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({})
+public @interface PlaceParameter {
+
+    /**
+     * @return The parameter name, as it appears in tokens.
+     */
+    String name();
+
+    /**
+     * The type of the parameter. One of <code>String</code>,
+     * <code>int</code>, <code>long</code>, <code>boolean</code>, or the
+     * <code>Integer</code>, <code>Long</code> and <code>Boolean</code>
+     * wrappers. Defaults to <code>String</code>.
+     *
+     * @return The type.
+     */
+    Class<?> type() default String.class;
+
+    /**
+     * Parameters with primitive types are always required. Others are
+     * <code>null</code> when missing, unless they are required.
+     *
+     * @return <code>true</code> if requests without the parameter are rejected.
+     */
+    boolean required() default false;
+
+    /**
+     * @return The name of the property in the generated class. Defaults to the
+     *         parameter name, in camel case.
+     */
+    String property() default "";
+}
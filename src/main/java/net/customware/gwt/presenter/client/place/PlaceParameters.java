@@ -0,0 +1,44 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the typed parameters of a place which is also annotated with
+ * {@link PlaceName}. Eg:
+ * <p/>
+ * <pre>
+ * &#64;PlaceName( "contact" )
+ * &#64;PlaceParameters( { &#64;PlaceParameter( name = "id", type = long.class ), &#64;PlaceParameter( name = "tab" ) } )
+ * public class ContactPlace extends ProvidedPresenterPlace&lt;ContactPresenter&gt; {
+ *     ...
+ *     protected void preparePresenter( PlaceRequest request, ContactPresenter presenter ) {
+ *         ContactPlaceParams params = ContactPlaceParams.from( request );
+ *         presenter.setContact( params.getId(), params.getTab() );
+ *     }
+ * }
+ * </pre>
+ * <p/>
+ * A class named after the place with a <code>Params</code> suffix is
+ * generated at compile time, by the annotation processor in the
+ * <code>gwt-presenter-processor</code> jar. It holds the typed values, converts them to
+ * and from {@link PlaceRequest}s and tokens directly, and provides a
+ * {@link PlaceTokenCodec} for use with a {@link CompositeTokenFormatter}.
+ * Tokens are written in the same format as {@link ParameterTokenFormatter},
+ * but only declared parameters are read and written. The generated
+ * constructor takes the values in order of parameter name, the same order
+ * they appear in tokens.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface PlaceParameters {
+
+    /**
+     * @return The parameters.
+     */
+    PlaceParameter[] value();
+}
@@ -0,0 +1,30 @@
+package net.customware.gwt.presenter.client.place;
+
+import java.util.List;
+
+/**
+ * Creates places by name, so that a {@link DefaultPlaceManager} only creates
+ * and registers each place when it is first requested. Implementations are
+ * usually generated from an interface annotated with
+ * {@link GeneratePlaceRegistry}.
+ *
+ * @see DefaultPlaceManager#setPlaceRegistry(PlaceRegistry)
+ */
+public interface PlaceRegistry {
+
+    /**
+     * Returns the place with the specified name. The {@link DefaultPlaceManager}
+     * routes requests to the places returned by name, whatever
+     * {@link Place#isRoutedByName()} returns, so they are only given requests
+     * with their own name.
+     *
+     * @param name The place name.
+     * @return The place, or <code>null</code> if there is no place with the name.
+     */
+    Place getPlace( String name );
+
+    /**
+     * @return The names of the places which can be created, in alphabetical order.
+     */
+    List<String> getPlaceNames();
+}
@@ -1,57 +1,216 @@
 package net.customware.gwt.presenter.client.place;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
- * This class represents a 'request' for a place location. 
- * 
+ * This class represents a 'request' for a place location.
+ *
  * <p>It includes the 'id' of the place as well as any parameter values.</p>
- * 
- * <p>PlaceRequests are usually created from GWT history strings by using a 
+ *
+ * <p>PlaceRequests are usually created from GWT history strings by using a
  * {@link TokenFormatter}</p>
- * 
+ *
+ * <p>Requests are immutable. Parameters are stored in a pair of arrays, sorted by
+ * name. Use a {@link Builder} to create a request with several parameters in one
+ * step, rather than chaining calls to {@link #with(String, String)}.</p>
+ *
+ * <p>The sorted order is canonical: requests with the same name and parameters
+ * list them in the same order, however they were added, so formatters which
+ * write parameters in order always produce the same token for equal requests.
+ * Names are compared with {@link String#compareTo(String)}. Use
+ * {@link #getParameterCount()}, {@link #getParameterName(int)} and
+ * {@link #getParameterValue(int)} to read the parameters in order without
+ * looking each one up.</p>
+ *
+ * <p>Parameter names cannot be <code>null</code>: adding a parameter with a
+ * <code>null</code> name throws an {@link IllegalArgumentException}. Parameters
+ * with <code>null</code> values are ignored.</p>
+ *
+ * <p>On the JVM, requests can be shared between threads. The hash code and
+ * the parameter name set are created lazily, but recreating them in another
+ * thread gives the same result.</p>
+ *
  * @author David Peterson
  */
 public class PlaceRequest {
 
+    /**
+     * Collects parameters for a new {@link PlaceRequest}. Eg:
+     * <p/>
+     * <pre>
+     * PlaceRequest request = new PlaceRequest.Builder( &quot;foo&quot; )
+     *     .with( &quot;id&quot;, id ).with( &quot;tab&quot;, tab ).build();
+     * </pre>
+     */
+    public static class Builder {
+
+        private final String name;
+
+        private String[] names;
+
+        private String[] values;
+
+        private int size;
+
+        public Builder( String name ) {
+            this.name = name;
+            this.names = new String[4];
+            this.values = new String[4];
+        }
+
+        /**
+         * Creates a builder starting with the name and parameters of the
+         * request.
+         *
+         * @param request The request to copy.
+         */
+        public Builder( PlaceRequest request ) {
+            this.name = request.name;
+            this.size = request.names.length;
+            this.names = new String[Math.max( 4, size * 2 )];
+            this.values = new String[names.length];
+            System.arraycopy( request.names, 0, names, 0, size );
+            System.arraycopy( request.values, 0, values, 0, size );
+        }
+
+        /**
+         * Sets the parameter value. If the parameter has already been set, the
+         * new value replaces it. <code>null</code> values are ignored.
+         *
+         * @param name  The parameter name.
+         * @param value The parameter value.
+         * @return The builder.
+         * @throws IllegalArgumentException if the name is <code>null</code>.
+         */
+        public Builder with( String name, String value ) {
+            checkName( name );
+            if ( value == null )
+                return this;
+
+            int index;
+            // Parameters often arrive in order, so check the end first.
+            if ( size == 0 || names[size - 1].compareTo( name ) < 0 )
+                index = -size - 1;
+            else
+                index = indexOf( names, size, name );
+
+            if ( index >= 0 ) {
+                values[index] = value;
+            } else {
+                index = -index - 1;
+                if ( size == names.length ) {
+                    names = copyOf( names, size, size * 2 );
+                    values = copyOf( values, size, size * 2 );
+                }
+                System.arraycopy( names, index, names, index + 1, size - index );
+                System.arraycopy( values, index, values, index + 1, size - index );
+                names[index] = name;
+                values[index] = value;
+                size++;
+            }
+            return this;
+        }
+
+        /**
+         * Sets all the parameters in the map.
+         *
+         * @param params The parameters.
+         * @return The builder.
+         */
+        public Builder with( Map<String, String> params ) {
+            for ( Map.Entry<String, String> param : params.entrySet() ) {
+                with( param.getKey(), param.getValue() );
+            }
+            return this;
+        }
+
+        /**
+         * @return The new request.
+         */
+        public PlaceRequest build() {
+            if ( size == 0 )
+                return new PlaceRequest( name );
+            return new PlaceRequest( name, copyOf( names, size, size ), copyOf( values, size, size ) );
+        }
+    }
+
+    private static final String[] NO_PARAMS = new String[0];
+
     private final String name;
 
-    private final Map<String, String> params;
+    private final String[] names;
+
+    private final String[] values;
+
+    private int hashCode;
+
+    private Set<String> parameterNames;
 
     public PlaceRequest( String name ) {
-        this.name = name;
-        this.params = null;
+        this( name, NO_PARAMS, NO_PARAMS );
     }
 
-    private PlaceRequest( PlaceRequest req, String name, String value ) {
-        this.name = req.name;
-        this.params = new HashMap<String, String>();
-        if ( req.params != null )
-            this.params.putAll( req.params );
-        if ( value != null )
-            this.params.put( name, value );
+    private PlaceRequest( String name, String[] names, String[] values ) {
+        this.name = name;
+        this.names = names;
+        this.values = values;
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * Returns the parameter names, in sorted order.
+     *
+     * @return The read-only set of names.
+     */
     public Set<String> getParameterNames() {
-        if ( params != null ) {
-            return params.keySet();
-        } else {
+        if ( names.length == 0 )
             return Collections.emptySet();
-        }
+
+        if ( parameterNames == null )
+            parameterNames = new ParameterNames();
+        return parameterNames;
+    }
+
+    /**
+     * @return The number of parameters.
+     */
+    public int getParameterCount() {
+        return names.length;
+    }
+
+    /**
+     * @param index The index, from <code>0</code> to {@link #getParameterCount()} - 1.
+     * @return The name of the parameter at the index, in sorted order.
+     */
+    public String getParameterName( int index ) {
+        return names[index];
+    }
+
+    /**
+     * @param index The index, from <code>0</code> to {@link #getParameterCount()} - 1.
+     * @return The value of the parameter at the index, in sorted order.
+     */
+    public String getParameterValue( int index ) {
+        return values[index];
     }
 
     public String getParameter( String key, String defaultValue ) {
         String value = null;
 
-        if ( params != null )
-            value = params.get( key );
+        if ( key != null ) {
+            int index = indexOf( names, names.length, key );
+            if ( index >= 0 )
+                value = values[index];
+        }
 
         if ( value == null )
             value = defaultValue;
@@ -62,46 +221,170 @@ public class PlaceRequest {
      * Returns a new instance of the request with the specified parameter name
      * and value. If a parameter with the same name was previously specified,
      * the new request contains the new value.
+     * <p/>
+     * Each call copies the existing parameters, so use a {@link Builder} or
+     * {@link #with(Map)} when adding more than one.
      *
      * @param name  The new parameter name.
      * @param value The new parameter value.
      * @return The new place request instance.
+     * @throws IllegalArgumentException if the name is <code>null</code>.
      */
     public PlaceRequest with( String name, String value ) {
-        return new PlaceRequest( this, name, value );
+        checkName( name );
+        if ( value == null )
+            return this;
+
+        int index = indexOf( names, names.length, name );
+        if ( index >= 0 ) {
+            if ( value.equals( values[index] ) )
+                return this;
+            String[] newValues = copyOf( values, values.length, values.length );
+            newValues[index] = value;
+            return new PlaceRequest( this.name, names, newValues );
+        }
+
+        index = -index - 1;
+        int size = names.length;
+        String[] newNames = new String[size + 1];
+        String[] newValues = new String[size + 1];
+        System.arraycopy( names, 0, newNames, 0, index );
+        System.arraycopy( values, 0, newValues, 0, index );
+        newNames[index] = name;
+        newValues[index] = value;
+        System.arraycopy( names, index, newNames, index + 1, size - index );
+        System.arraycopy( values, index, newValues, index + 1, size - index );
+        return new PlaceRequest( this.name, newNames, newValues );
+    }
+
+    /**
+     * Returns a new instance of the request with all the parameters in the
+     * map added, replacing any existing values with the same names.
+     *
+     * @param params The new parameters.
+     * @return The new place request instance.
+     */
+    public PlaceRequest with( Map<String, String> params ) {
+        if ( params.isEmpty() )
+            return this;
+        return new Builder( this ).with( params ).build();
     }
 
     @Override
     public boolean equals( Object obj ) {
+        if ( obj == this )
+            return true;
         if ( obj instanceof PlaceRequest ) {
             PlaceRequest req = (PlaceRequest) obj;
             if ( !name.equals( req.name ) )
                 return false;
 
-            if ( params == null )
-                return req.params == null;
-            else
-                return params.equals( req.params );
+            if ( hashCode != 0 && req.hashCode != 0 && hashCode != req.hashCode )
+                return false;
+
+            return Arrays.equals( names, req.names ) && Arrays.equals( values, req.values );
         }
         return false;
     }
 
+    /**
+     * Returns the same value as when the parameters were kept in a
+     * {@link java.util.HashMap}. The value is cached.
+     */
     @Override
     public int hashCode() {
-        return 11 * ( name.hashCode() + ( params == null ? 0 : params.hashCode() ) );
+        int hash = hashCode;
+        if ( hash == 0 ) {
+            int paramsHash = 0;
+            for ( int i = 0; i < names.length; i++ ) {
+                paramsHash += names[i].hashCode() ^ values[i].hashCode();
+            }
+            hash = 11 * ( name.hashCode() + paramsHash );
+            hashCode = hash;
+        }
+        return hash;
     }
 
     @Override
     public String toString() {
         StringBuilder out = new StringBuilder();
         out.append( "{" ).append( name );
-        if ( params != null && params.size() > 0 ) {
+        if ( names.length > 0 ) {
             out.append( ": " );
-            for ( Map.Entry<String, String> entry : params.entrySet() ) {
-                out.append( entry.getKey() ).append( " = " ).append( entry.getValue() ).append( ";" );
+            for ( int i = 0; i < names.length; i++ ) {
+                out.append( names[i] ).append( " = " ).append( values[i] ).append( ";" );
             }
         }
         out.append( "}" );
         return out.toString();
     }
+
+    private static void checkName( String name ) {
+        if ( name == null )
+            throw new IllegalArgumentException( "Parameter names cannot be null." );
+    }
+
+    /**
+     * Binary searches the first <code>size</code> names for the key.
+     *
+     * @return The index of the key if found, otherwise <code>(-(insertion point) - 1)</code>.
+     */
+    private static int indexOf( String[] names, int size, String key ) {
+        int low = 0;
+        int high = size - 1;
+        while ( low <= high ) {
+            int mid = ( low + high ) >>> 1;
+            int cmp = names[mid].compareTo( key );
+            if ( cmp < 0 )
+                low = mid + 1;
+            else if ( cmp > 0 )
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -( low + 1 );
+    }
+
+    private static String[] copyOf( String[] array, int length, int newLength ) {
+        String[] copy = new String[newLength];
+        System.arraycopy( array, 0, copy, 0, length );
+        return copy;
+    }
+
+    /**
+     * A read-only view of the parameter names.
+     */
+    private class ParameterNames extends AbstractSet<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int next = 0;
+
+                public boolean hasNext() {
+                    return next < names.length;
+                }
+
+                public String next() {
+                    if ( next >= names.length )
+                        throw new NoSuchElementException();
+                    return names[next++];
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return names.length;
+        }
+
+        @Override
+        public boolean contains( Object o ) {
+            return o instanceof String && indexOf( names, names.length, (String) o ) >= 0;
+        }
+    }
 }
@@ -2,6 +2,7 @@ package net.customware.gwt.presenter.client.place;
 
 import com.google.gwt.event.shared.GwtEvent;
 import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.SourceEvents;
 
 public class PlaceRequestEvent extends GwtEvent<PlaceRequestHandler> {
 
@@ -49,6 +50,8 @@ public class PlaceRequestEvent extends GwtEvent<PlaceRequestHandler> {
     }
 
     static void fire( EventBus eventBus, PlaceRequest request, boolean fromHistory ) {
-        eventBus.fireEvent( new PlaceRequestEvent( request, fromHistory ) );
+        // Only create the event if something is listening for it.
+        if ( SourceEvents.isHandled( eventBus, getType(), null ) )
+            eventBus.fireEvent( new PlaceRequestEvent( request, fromHistory ) );
     }
 }
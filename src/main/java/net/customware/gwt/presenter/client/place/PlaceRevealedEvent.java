@@ -2,6 +2,7 @@ package net.customware.gwt.presenter.client.place;
 
 import com.google.gwt.event.shared.GwtEvent;
 import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.SourceEvents;
 
 public class PlaceRevealedEvent extends GwtEvent<PlaceRevealedHandler> {
 
@@ -13,8 +14,19 @@ public class PlaceRevealedEvent extends GwtEvent<PlaceRevealedHandler> {
 
     private final Place place;
 
+    private final PlaceRequest request;
+
     public PlaceRevealedEvent( Place place ) {
+        this( place, null );
+    }
+
+    /**
+     * @param place   The place.
+     * @param request The request from {@link Place#createRequest()}, or <code>null</code>.
+     */
+    public PlaceRevealedEvent( Place place, PlaceRequest request ) {
         this.place = place;
+        this.request = request;
     }
 
     /**
@@ -26,6 +38,15 @@ public class PlaceRevealedEvent extends GwtEvent<PlaceRevealedHandler> {
         return place;
     }
 
+    /**
+     * @return The request the place created once revealed, or
+     *         <code>null</code> if it was not provided, in which case handlers
+     *         should call {@link Place#createRequest()}.
+     */
+    public PlaceRequest getRequest() {
+        return request;
+    }
+
     @Override
     protected void dispatch( PlaceRevealedHandler handler ) {
         handler.onPlaceRevealed( this );
@@ -37,12 +58,26 @@ public class PlaceRevealedEvent extends GwtEvent<PlaceRevealedHandler> {
     }
 
     /**
-     * Call this method to fire place revealed events.
+     * Call this method to fire place revealed events. The event is fired from
+     * the place, and is only created if something is listening for it.
      *
      * @param eventBus The eventBus.
      * @param place    The place.
      */
     public static void fire( EventBus eventBus, Place place ) {
-        eventBus.fireEvent( new PlaceRevealedEvent( place ) );
+        fire( eventBus, place, null );
+    }
+
+    /**
+     * Fires the event from the place, with the request it has already created
+     * for its revealed state, so that handlers do not need to create it again.
+     *
+     * @param eventBus The event bus.
+     * @param place    The place.
+     * @param request  The request from {@link Place#createRequest()}, or <code>null</code>.
+     */
+    public static void fire( EventBus eventBus, Place place, PlaceRequest request ) {
+        if ( SourceEvents.isHandled( eventBus, TYPE, place ) )
+            SourceEvents.fire( eventBus, new PlaceRevealedEvent( place, request ), place );
     }
 }
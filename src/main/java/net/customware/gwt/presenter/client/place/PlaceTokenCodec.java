@@ -0,0 +1,14 @@
+package net.customware.gwt.presenter.client.place;
+
+/**
+ * A {@link TokenFormatter} for the requests and tokens of a single place.
+ * Codecs are usually generated for places annotated with
+ * {@link PlaceParameters}, and combined with a {@link CompositeTokenFormatter}.
+ */
+public interface PlaceTokenCodec extends TokenFormatter {
+
+    /**
+     * @return The name of the place whose requests and tokens are converted.
+     */
+    String getPlaceName();
+}
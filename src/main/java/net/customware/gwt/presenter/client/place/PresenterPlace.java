@@ -7,6 +7,27 @@ import net.customware.gwt.presenter.client.widget.WidgetPresenter;
 /**
  * This is a subclass of {@link Place} with some helper values for working with
  * {@link Presenter}s.
+ * <p/>
+ * The place remembers the last request it published, with a
+ * {@link PlaceRevealedEvent} or a {@link PlaceChangedEvent}. When its
+ * presenter fires a {@link PresenterChangedEvent} which does not change the
+ * request, no {@link PlaceChangedEvent} is fired.
+ * <p/>
+ * Places can also keep snapshots of their presenter's state, so that going
+ * back or forward to a request which was shown recently restores the state
+ * instead of preparing the presenter again. Call
+ * {@link #setSnapshotCacheSize(int)} to turn this on, and implement
+ * {@link #createSnapshot(Presenter)} and
+ * {@link #restoreSnapshot(Presenter, Object)}. Snapshots are taken when the
+ * presenter is revealed, and again each time it changes. Snapshots which may
+ * be stale should be removed with {@link #invalidateSnapshot(PlaceRequest)} or
+ * {@link #invalidateSnapshots()}.
+ * <p/>
+ * If the presenter is prepared asynchronously, eg. by loading data in
+ * {@link #preparePresenter(PlaceRequest, Presenter)},
+ * {@link #createSnapshot(Presenter)} should return <code>null</code> until
+ * it is ready, and {@link #updateSnapshot()} should be called once it is,
+ * unless the presenter fires a {@link PresenterChangedEvent} then anyway.
  *
  * @author David Peterson
  */
@@ -15,29 +36,217 @@ public abstract class PresenterPlace<T extends Presenter> extends Place {
     private HandlerRegistration presenterChangedRegistration;
     private HandlerRegistration presenterRevealedRegistration;
 
+    private EventBus handlerEventBus;
+
+    /**
+     * The presenter the handlers are registered for.
+     */
+    private T createdPresenter;
+
+    private PlaceRequest lastRequest;
+
+    private int suppressedChangeCount;
+
+    private LruCache<PlaceRequest, Object> snapshots;
+
+    /**
+     * The request being handled, until a snapshot has been stored for it.
+     */
+    private PlaceRequest unsnapshottedRequest;
+
+    private int snapshotHitCount;
+
+    /**
+     * <code>true</code> while a request routed to the place is being handled.
+     */
+    private boolean handlingRequest;
+
     public PresenterPlace() {
     }
 
     public abstract T getPresenter();
 
+    /**
+     * Returns the presenter if it already exists, without creating it.
+     *
+     * @return The presenter last passed to {@link #presenterCreated(Presenter)},
+     *         or <code>null</code> if there is none.
+     */
+    protected T getCreatedPresenter() {
+        return createdPresenter;
+    }
+
+    /**
+     * Calls {@link #getPresenter()}, and registers the presenter's handlers if
+     * it has not been seen before.
+     */
+    private T presenter() {
+        T presenter = getPresenter();
+        if ( presenter != null )
+            presenterCreated( presenter );
+        return presenter;
+    }
+
     /**
      * Calls the {@link Presenter#revealDisplay()} method for the place's
      * presenter.
      */
     @Override
     public void reveal() {
-        getPresenter().revealDisplay();
+        presenter().revealDisplay();
+    }
+
+    /**
+     * Forgets the last request published, since the presenter is about to be
+     * prepared for a new one.
+     */
+    @Override
+    protected void dispatchRequest( EventBus eventBus, PlaceNavigation navigation ) {
+        lastRequest = null;
+        handlingRequest = true;
+        try {
+            super.dispatchRequest( eventBus, navigation );
+        } finally {
+            handlingRequest = false;
+        }
     }
 
     /**
-     * Reveals the display. Subclasses should override this method to perform
-     * any custom handling.
+     * Reveals the display, unless preparing the presenter started another
+     * navigation, eg. by redirecting to another place. Subclasses should
+     * override this method to perform any custom handling.
      */
     @Override
     protected void handleRequest( PlaceRequest request ) {
-        T presenter = getPresenter();
-        preparePresenter( request, presenter );
-        presenter.revealDisplay();
+        T presenter = presenter();
+        Object snapshot = snapshots == null ? null : snapshots.get( request );
+        if ( snapshot != null ) {
+            snapshotHitCount++;
+            restoreSnapshot( presenter, snapshot );
+        } else {
+            preparePresenter( request, presenter );
+        }
+        if ( snapshots != null )
+            unsnapshottedRequest = request;
+        mark( NavigationStage.PRESENTER_PREPARED );
+        if ( !isSuperseded() )
+            presenter.revealDisplay();
+    }
+
+    /**
+     * @return <code>true</code> if the navigation routed to the place has been
+     *         superseded by a later one.
+     */
+    private boolean isSuperseded() {
+        PlaceNavigation navigation = getNavigation();
+        return navigation != null && navigation.isSuperseded();
+    }
+
+    private void mark( NavigationStage stage ) {
+        PlaceNavigation navigation = getNavigation();
+        if ( navigation != null )
+            navigation.mark( stage );
+    }
+
+    /**
+     * Sets the number of presenter snapshots kept, one for each recent
+     * request. Setting it to 0, the default, turns snapshots off. Changing the
+     * size clears any existing snapshots.
+     *
+     * @param size The number of snapshots.
+     */
+    public void setSnapshotCacheSize( int size ) {
+        snapshots = size > 0 ? new LruCache<PlaceRequest, Object>( size ) : null;
+        unsnapshottedRequest = null;
+    }
+
+    /**
+     * @return The number of snapshots kept, or 0 if they are turned off.
+     */
+    public int getSnapshotCacheSize() {
+        return snapshots == null ? 0 : snapshots.getMaxSize();
+    }
+
+    /**
+     * @return The number of requests handled by restoring a snapshot.
+     */
+    public int getSnapshotHitCount() {
+        return snapshotHitCount;
+    }
+
+    /**
+     * Removes the snapshot for the request, if there is one.
+     *
+     * @param request The request.
+     */
+    public void invalidateSnapshot( PlaceRequest request ) {
+        if ( snapshots != null )
+            snapshots.remove( request );
+    }
+
+    /**
+     * Removes all snapshots.
+     */
+    public void invalidateSnapshots() {
+        if ( snapshots != null )
+            snapshots.clear();
+    }
+
+    /**
+     * Returns a snapshot of the presenter's current state, which
+     * {@link #restoreSnapshot(Presenter, Object)} can later restore. The
+     * snapshot must not change when the presenter does. Return
+     * <code>null</code> if the state should not be kept. The default
+     * implementation returns <code>null</code>.
+     *
+     * @param presenter The presenter.
+     * @return The snapshot, or <code>null</code>.
+     */
+    protected Object createSnapshot( T presenter ) {
+        return null;
+    }
+
+    /**
+     * Restores the presenter's state from a snapshot created by
+     * {@link #createSnapshot(Presenter)}. This is called instead of
+     * {@link #preparePresenter(PlaceRequest, Presenter)} when the request has a
+     * snapshot. The default implementation does nothing.
+     *
+     * @param presenter The presenter.
+     * @param snapshot  The snapshot.
+     */
+    protected void restoreSnapshot( T presenter, Object snapshot ) {
+    }
+
+    /**
+     * Stores a snapshot of the presenter's current state, replacing any older
+     * one for the same request. This is called when the presenter is revealed
+     * and when it changes. Places which prepare their presenter
+     * asynchronously should call it once preparation is complete. Nothing is
+     * stored if snapshots are off, or if {@link #createSnapshot(Presenter)}
+     * returns <code>null</code>.
+     */
+    protected void updateSnapshot() {
+        if ( snapshots != null )
+            storeSnapshot( createRequest() );
+    }
+
+    /**
+     * Keeps a snapshot of the presenter for the request it created, which is
+     * the one written to History, and for the request it was prepared for, if
+     * that has no snapshot yet.
+     */
+    private void storeSnapshot( PlaceRequest created ) {
+        T presenter = presenter();
+        if ( created == null || presenter == null )
+            return;
+        Object snapshot = createSnapshot( presenter );
+        if ( snapshot != null ) {
+            snapshots.put( created, snapshot );
+            if ( unsnapshottedRequest != null && !unsnapshottedRequest.equals( created ) )
+                snapshots.put( unsnapshottedRequest, snapshot );
+            unsnapshottedRequest = null;
+        }
     }
 
     /**
@@ -52,7 +261,18 @@ public abstract class PresenterPlace<T extends Presenter> extends Place {
 
     @Override
     protected PlaceRequest prepareRequest( PlaceRequest request ) {
-        return prepareRequest( request, getPresenter() );
+        return prepareRequest( request, presenter() );
+    }
+
+    /**
+     * Returns the number of {@link PresenterChangedEvent}s which did not
+     * result in a {@link PlaceChangedEvent}, because the request created for
+     * the presenter was the same as the last one published.
+     *
+     * @return The number of suppressed changes.
+     */
+    public int getSuppressedChangeCount() {
+        return suppressedChangeCount;
     }
 
     /**
@@ -99,30 +319,99 @@ public abstract class PresenterPlace<T extends Presenter> extends Place {
         return null;
     }
 
+    /**
+     * Remembers the event bus, so that handlers for the
+     * {@link PresenterChangedEvent}s and {@link PresenterRevealedEvent}s fired
+     * by the place's presenter can be registered once the presenter has been
+     * created. This does not create the presenter. If the event bus is a
+     * {@link SourceEventBus}, the handlers are added for the presenter as a
+     * source, so they are not called for other presenters.
+     */
     @Override
-    public void addHandlers( final EventBus eventBus ) {
+    public void addHandlers( EventBus eventBus ) {
         super.addHandlers( eventBus );
+        handlerEventBus = eventBus;
+        if ( createdPresenter != null )
+            addPresenterHandlers( eventBus, createdPresenter );
+    }
+
+    /**
+     * Registers the presenter's handlers, replacing any registered for an
+     * earlier presenter. The place calls this each time it gets its presenter
+     * from {@link #getPresenter()}. Places which create their presenter should
+     * call it as soon as they do, so that changes to the presenter are tracked
+     * before the place is first requested.
+     *
+     * @param presenter The presenter.
+     */
+    protected void presenterCreated( T presenter ) {
+        if ( presenter == createdPresenter )
+            return;
+        removePresenterHandlers();
+        createdPresenter = presenter;
+        if ( handlerEventBus != null )
+            addPresenterHandlers( handlerEventBus, presenter );
+    }
 
-        presenterChangedRegistration = eventBus.addHandler( PresenterChangedEvent.getType(), new PresenterChangedHandler() {
+    /**
+     * Removes the presenter's handlers and forgets it. Places which release
+     * their presenter should call this.
+     */
+    protected void presenterReleased() {
+        removePresenterHandlers();
+        createdPresenter = null;
+    }
+
+    /**
+     * Registers the handlers for events fired by the presenter. This is called
+     * by {@link #presenterCreated(Presenter)} and
+     * {@link #addHandlers(EventBus)}.
+     *
+     * @param eventBus  The event bus.
+     * @param presenter The presenter.
+     */
+    protected void addPresenterHandlers( final EventBus eventBus, final T presenter ) {
+        presenterChangedRegistration = SourceEvents.addHandler( eventBus, PresenterChangedEvent.getType(), presenter, new PresenterChangedHandler() {
             /**
-             * Listens for {@link net.customware.gwt.presenter.client.PresenterChangedEvent}s that match the place's
+             * Listens for {@link net.customware.gwt.presenter.client.PresenterChangedEvent}s from the place's
              * {@link Presenter} and fires {@link PlaceChangedEvent} based on the
              * {@link Presenter}'s current state, calling
              * {@link PresenterPlace#prepareRequest(PlaceRequest, Presenter)} to configure the
-             * request.
+             * request. If the request has not changed, nothing is fired.
+             * Otherwise the request is passed along with the event, so it is
+             * not created again, and remembered as the last one published.
              *
              * @param event The event.
              */
             public void onPresenterChanged( PresenterChangedEvent event ) {
-                if ( PresenterPlace.this.getPresenter() == event.getPresenter() )
-                    PlaceChangedEvent.fire( eventBus, PresenterPlace.this );
+                if ( event.getPresenter() != presenter )
+                    return;
+                PlaceRequest request = createRequest();
+                if ( snapshots != null )
+                    storeSnapshot( request );
+                if ( lastRequest != null && lastRequest.equals( request ) ) {
+                    suppressedChangeCount++;
+                } else {
+                    PlaceChangedEvent.fire( eventBus, PresenterPlace.this, request );
+                    lastRequest = request;
+                }
             }
         } );
 
-        presenterRevealedRegistration = eventBus.addHandler( PresenterRevealedEvent.getType(), new PresenterRevealedHandler() {
+        presenterRevealedRegistration = SourceEvents.addHandler( eventBus, PresenterRevealedEvent.getType(), presenter, new PresenterRevealedHandler() {
             public void onPresenterRevealed( PresenterRevealedEvent event ) {
-                if ( event.isOriginator() && PresenterPlace.this.getPresenter() == event.getPresenter() )
-                    PlaceRevealedEvent.fire( eventBus, PresenterPlace.this );
+                if ( event.getPresenter() != presenter )
+                    return;
+                // A reveal while handling a superseded request must not
+                // overwrite the History written by the later navigation.
+                if ( event.isOriginator() && !( handlingRequest && isSuperseded() ) ) {
+                    mark( NavigationStage.DISPLAY_REVEALED );
+                    PlaceRequest request = createRequest();
+                    if ( snapshots != null )
+                        storeSnapshot( request );
+                    PlaceRevealedEvent.fire( eventBus, PresenterPlace.this, request );
+                    lastRequest = request;
+                }
             }
         } );
 
@@ -131,7 +420,14 @@ public abstract class PresenterPlace<T extends Presenter> extends Place {
     @Override
     public void removeHandlers( EventBus eventBus ) {
         super.removeHandlers( eventBus );
+        handlerEventBus = null;
+        removePresenterHandlers();
+    }
 
+    /**
+     * Removes the handlers added by {@link #addPresenterHandlers(EventBus, Presenter)}.
+     */
+    protected void removePresenterHandlers() {
         if ( presenterChangedRegistration != null ) {
             presenterChangedRegistration.removeHandler();
             presenterChangedRegistration = null;
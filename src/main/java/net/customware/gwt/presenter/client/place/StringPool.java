@@ -0,0 +1,83 @@
+package net.customware.gwt.presenter.client.place;
+
+/**
+ * Keeps a single instance of recently used strings, so that equal place
+ * and parameter names which are parsed repeatedly share one copy instead of
+ * each being kept separately. The pool holds at
+ * most <code>maxSize</code> strings, discarding the least recently used, so
+ * rarely repeated values such as IDs do not fill it up.
+ * <p/>
+ * Pools are not thread-safe.
+ *
+ * @see ParameterTokenFormatter#ParameterTokenFormatter(StringPool)
+ */
+public class StringPool {
+
+    private final LruCache<String, String> strings;
+
+    private int hits;
+
+    private int misses;
+
+    /**
+     * @param maxSize The maximum number of strings to keep.
+     */
+    public StringPool( int maxSize ) {
+        strings = new LruCache<String, String>( maxSize );
+    }
+
+    /**
+     * Returns the pooled string equal to the value, adding the value if there
+     * is none.
+     *
+     * @param value The value.
+     * @return The pooled string, or <code>null</code> if the value is <code>null</code>.
+     */
+    public String intern( String value ) {
+        if ( value == null )
+            return null;
+        String pooled = strings.get( value );
+        if ( pooled != null ) {
+            hits++;
+            return pooled;
+        }
+        misses++;
+        strings.put( value, value );
+        return value;
+    }
+
+    /**
+     * Removes all pooled strings. The hit and miss counts are not reset.
+     */
+    public void clear() {
+        strings.clear();
+    }
+
+    /**
+     * @return The number of strings in the pool.
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * @return The maximum number of strings kept.
+     */
+    public int getMaxSize() {
+        return strings.getMaxSize();
+    }
+
+    /**
+     * @return The number of values which were already pooled.
+     */
+    public int getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The number of values which were added to the pool.
+     */
+    public int getMisses() {
+        return misses;
+    }
+}
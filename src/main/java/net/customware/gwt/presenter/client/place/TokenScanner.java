@@ -0,0 +1,212 @@
+package net.customware.gwt.presenter.client.place;
+
+/**
+ * Reads the place name and parameters from a history token in the format used
+ * by {@link ParameterTokenFormatter}:
+ * <p/>
+ * <pre>[name](;param=value)*</pre>
+ * <p/>
+ * Parameters are read one at a time, in the order they appear, without
+ * building a {@link PlaceRequest}. Eg:
+ * <p/>
+ * <pre>
+ * TokenScanner scanner = new TokenScanner( token );
+ * while ( scanner.nextParameter() ) {
+ *     if ( "id".equals( scanner.getParameterName() ) )
+ *         id = scanner.getParameterValue();
+ * }
+ * </pre>
+ * <p/>
+ * {@link #appendParameter(StringBuilder, String, String)} writes parameters in
+ * the same format.
+ */
+public class TokenScanner {
+
+    public static final char PARAM_SEPARATOR = ';';
+
+    public static final char VALUE_SEPARATOR = '=';
+
+    private static final char NO_SEPARATOR = 0;
+
+    private final String token;
+
+    private final int length;
+
+    private final String placeName;
+
+    private int pos;
+
+    /**
+     * The separator which ended the last field, or {@link #NO_SEPARATOR} if
+     * it was ended by the end of the token.
+     */
+    private char separator;
+
+    /**
+     * <code>true</code> if the token ends with the separator after the place
+     * name, which is read as a single empty parameter.
+     */
+    private boolean trailingSeparator;
+
+    private String parameterName;
+
+    private String parameterValue;
+
+    /**
+     * Reads the place name from the token.
+     *
+     * @param token The token.
+     * @throws TokenFormatException if the place name is missing.
+     */
+    public TokenScanner( String token ) throws TokenFormatException {
+        this.token = token;
+        this.length = token.length();
+
+        int split = token.indexOf( PARAM_SEPARATOR );
+        if ( split == 0 ) {
+            throw new TokenFormatException( "Place name is missing." );
+        } else if ( split == -1 ) {
+            placeName = token;
+            pos = length;
+        } else {
+            placeName = token.substring( 0, split );
+            pos = split + 1;
+            trailingSeparator = pos == length;
+        }
+    }
+
+    /**
+     * @return The place name, which is not unescaped.
+     */
+    public String getPlaceName() {
+        return placeName;
+    }
+
+    /**
+     * @return <code>true</code> if there are more parameters to read.
+     */
+    public boolean hasParameters() {
+        return trailingSeparator || pos < length;
+    }
+
+    /**
+     * Reads the next parameter. A parameter without a value is read with an
+     * empty value.
+     *
+     * @return <code>false</code> if there are no more parameters.
+     * @throws TokenFormatException if the parameter is malformed.
+     */
+    public boolean nextParameter() throws TokenFormatException {
+        if ( trailingSeparator ) {
+            trailingSeparator = false;
+            parameterName = "";
+            parameterValue = "";
+            return true;
+        }
+        if ( pos >= length )
+            return false;
+
+        parameterName = next();
+        parameterValue = "";
+        if ( separator == VALUE_SEPARATOR ) {
+            parameterValue = next();
+            // Trailing separators are ignored, but not extra values.
+            while ( separator == VALUE_SEPARATOR ) {
+                if ( next().length() > 0 )
+                    throw badParameter();
+            }
+            if ( parameterName.length() == 0 && parameterValue.length() == 0 )
+                throw badParameter();
+        }
+        return true;
+    }
+
+    /**
+     * @return The unescaped name of the current parameter.
+     */
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    /**
+     * @return The unescaped value of the current parameter.
+     */
+    public String getParameterValue() {
+        return parameterValue;
+    }
+
+    /**
+     * Reads up to the next unescaped separator, or the end of the token, and
+     * returns the unescaped field.
+     */
+    private String next() {
+        StringBuilder unescaped = null;
+        int start = pos;
+        while ( pos < length ) {
+            char c = token.charAt( pos );
+            if ( c == PARAM_SEPARATOR || c == VALUE_SEPARATOR ) {
+                if ( pos + 1 < length && token.charAt( pos + 1 ) == c ) {
+                    // An escaped separator - keep one of the pair.
+                    if ( unescaped == null )
+                        unescaped = new StringBuilder();
+                    unescaped.append( token, start, pos + 1 );
+                    pos += 2;
+                    start = pos;
+                } else {
+                    String field = field( unescaped, start, pos );
+                    separator = c;
+                    pos++;
+                    return field;
+                }
+            } else {
+                pos++;
+            }
+        }
+        separator = NO_SEPARATOR;
+        return field( unescaped, start, pos );
+    }
+
+    private String field( StringBuilder unescaped, int start, int end ) {
+        if ( unescaped == null )
+            return token.substring( start, end );
+        return unescaped.append( token, start, end ).toString();
+    }
+
+    private static TokenFormatException badParameter() {
+        return new TokenFormatException( "Bad parameter: Parameters require a single '"
+                + VALUE_SEPARATOR + "' between the key and value." );
+    }
+
+    /**
+     * Appends a parameter to a token, escaping the name and value.
+     *
+     * @param out   The token.
+     * @param name  The parameter name.
+     * @param value The parameter value.
+     */
+    public static void appendParameter( StringBuilder out, String name, String value ) {
+        out.append( PARAM_SEPARATOR );
+        escape( name, out );
+        out.append( VALUE_SEPARATOR );
+        escape( value, out );
+    }
+
+    /**
+     * Appends the value, doubling any separator characters.
+     *
+     * @param value The value.
+     * @param out   The token.
+     */
+    public static void escape( String value, StringBuilder out ) {
+        int length = value.length();
+        int start = 0;
+        for ( int i = 0; i < length; i++ ) {
+            char c = value.charAt( i );
+            if ( c == PARAM_SEPARATOR || c == VALUE_SEPARATOR ) {
+                out.append( value, start, i + 1 ).append( c );
+                start = i + 1;
+            }
+        }
+        out.append( value, start, length );
+    }
+}
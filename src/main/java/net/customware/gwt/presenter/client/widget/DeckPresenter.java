@@ -17,4 +17,8 @@ public abstract class DeckPresenter extends WidgetContainerPresenter<DeckDisplay
         super( display, eventBus, presenters );
     }
 
+    public DeckPresenter( DeckDisplay display, EventBus eventBus, boolean lazyBinding, WidgetPresenter<?>... presenters ) {
+        super( display, eventBus, lazyBinding, presenters );
+    }
+
 }
@@ -2,14 +2,33 @@ package net.customware.gwt.presenter.client.widget;
 
 import net.customware.gwt.presenter.client.EventBus;
 import net.customware.gwt.presenter.client.PresenterRevealedEvent;
-import net.customware.gwt.presenter.client.PresenterRevealedHandler;
 
 import java.util.List;
 
 /**
- * This class provides support for widgets that contain other widgets. It will
- * listen for {@link PresenterRevealedEvent}s and reveal itself if the source
- * was a direct child of this presenter.
+ * This class provides support for widgets that contain other widgets. When
+ * one of its direct children is revealed, it makes that child the current
+ * presenter and reveals itself. Children report to their container directly,
+ * so a revelation travels up the tree one container at a time, without the
+ * containers listening to the {@link EventBus}. Each container still fires
+ * its own {@link PresenterRevealedEvent} for any other listeners.
+ * <p/>
+ * Since containers do not listen to the {@link EventBus}, only a child's own
+ * {@link WidgetPresenter#revealDisplay()} and
+ * {@link WidgetPresenter#firePresenterRevealedEvent(boolean)} reach its
+ * container. Firing a {@link PresenterRevealedEvent} for the child by any
+ * other means, eg. {@link PresenterRevealedEvent#fire(EventBus, net.customware.gwt.presenter.client.Presenter)},
+ * does not.
+ * <p/>
+ * A presenter can only belong to one container at a time. Adding it to
+ * another container removes it from the previous one, whose display no
+ * longer shows it. It stays bound, ready for the new container.
+ * <p/>
+ * By default, all children are bound and their widgets added to the display
+ * when the container is bound. With lazy binding, each child is only bound and
+ * added when it is first revealed or becomes the current presenter, which
+ * saves the cost of children that are never shown. A child revealed directly
+ * is bound before its {@link WidgetPresenter#onRevealDisplay()} is called.
  *
  * @author David Peterson
  */
@@ -17,10 +36,28 @@ public abstract class WidgetContainerPresenter<T extends WidgetContainerDisplay>
 
     private final List<WidgetPresenter<?>> presenters;
 
+    private final List<WidgetPresenter<?>> attachedPresenters;
+
+    private final boolean lazyBinding;
+
     private WidgetPresenter<?> currentPresenter;
 
     public WidgetContainerPresenter( T display, EventBus eventBus, WidgetPresenter<?>... presenters ) {
+        this( display, eventBus, false, presenters );
+    }
+
+    /**
+     * @param display     The display.
+     * @param eventBus    The event bus.
+     * @param lazyBinding If <code>true</code>, children are bound and added to the
+     *                    display when they first become the current presenter,
+     *                    rather than when this presenter is bound.
+     * @param presenters  The child presenters.
+     */
+    public WidgetContainerPresenter( T display, EventBus eventBus, boolean lazyBinding, WidgetPresenter<?>... presenters ) {
         super( display, eventBus );
+        this.lazyBinding = lazyBinding;
+        this.attachedPresenters = new java.util.ArrayList<WidgetPresenter<?>>();
         this.presenters = new java.util.ArrayList<WidgetPresenter<?>>();
         for ( WidgetPresenter<?> presenter : presenters ) {
             addPresenter( presenter );
@@ -53,42 +90,111 @@ public abstract class WidgetContainerPresenter<T extends WidgetContainerDisplay>
      */
     protected boolean addPresenter( WidgetPresenter<?> presenter ) {
         if ( !isBound() ) {
+            if ( presenter.container != null && presenter.container != this )
+                presenter.container.removeChild( presenter );
             presenters.add( presenter );
+            presenter.container = this;
             return true;
         }
         return false;
     }
 
+    /**
+     * Removes a child which is being added to another container, without
+     * unbinding it.
+     *
+     * @param presenter The child presenter.
+     */
+    private void removeChild( WidgetPresenter<?> presenter ) {
+        presenters.remove( presenter );
+        if ( presenter.attached ) {
+            presenter.attached = false;
+            attachedPresenters.remove( presenter );
+            display.removeWidget( presenter.getDisplay().asWidget() );
+        }
+        if ( currentPresenter == presenter )
+            currentPresenter = null;
+        presenter.container = null;
+    }
+
     @Override
     protected void onBind() {
-        for ( WidgetPresenter<?> presenter : presenters ) {
-            presenter.bind();
-            display.addWidget( presenter.getDisplay().asWidget() );
+        if ( !lazyBinding ) {
+            for ( WidgetPresenter<?> presenter : presenters ) {
+                attach( presenter );
+            }
         }
+    }
 
-        // Handle revelation events from children
-        registerHandler( eventBus.addHandler( PresenterRevealedEvent.getType(), new PresenterRevealedHandler() {
-            public void onPresenterRevealed( PresenterRevealedEvent event ) {
-                if ( event.getPresenter() instanceof WidgetPresenter<?> ) {
-                    WidgetPresenter<?> presenter = (WidgetPresenter<?>) event.getPresenter();
-                    if ( presenters.contains( presenter ) ) {
-                        // Make this presenter the focus
-                        setCurrentPresenter( presenter );
-                        // Reveal ourselves so that the child will be revealed.
-                        firePresenterRevealedEvent( false );
-                    }
-                }
-            }
-        } ) );
+    /**
+     * Called by a child before it is revealed, so that it is bound and its
+     * widget added first. This container is attached to its own container
+     * first, so nested lazy containers are bound from the top down.
+     *
+     * @param child The child presenter.
+     */
+    void childRevealing( WidgetPresenter<?> child ) {
+        if ( child.container != this )
+            return;
+        if ( container != null )
+            container.childRevealing( this );
+        if ( isBound() )
+            ensureAttached( child );
+    }
+
+    /**
+     * Called by a child when it has been revealed.
+     *
+     * @param child The child presenter.
+     */
+    void childRevealed( WidgetPresenter<?> child ) {
+        if ( isBound() && child.container == this ) {
+            // Make this presenter the focus
+            showPresenter( child );
+            // Reveal ourselves so that the child will be revealed.
+            firePresenterRevealedEvent( false );
+        }
     }
 
     @Override
     protected void onUnbind() {
         currentPresenter = null;
-        for ( WidgetPresenter<?> presenter : presenters ) {
+        for ( WidgetPresenter<?> presenter : attachedPresenters ) {
+            presenter.attached = false;
             presenter.unbind();
             display.removeWidget( presenter.getDisplay().asWidget() );
         }
+        attachedPresenters.clear();
+    }
+
+    /**
+     * @return <code>true</code> if children are only bound when they first
+     *         become the current presenter.
+     */
+    protected boolean isLazyBinding() {
+        return lazyBinding;
+    }
+
+    /**
+     * Checks if the child has been bound and its widget added to the display by this container.
+     *
+     * @param presenter The child presenter.
+     * @return <code>true</code> if the child is attached.
+     */
+    protected boolean isAttached( WidgetPresenter<?> presenter ) {
+        return presenter.container == this && presenter.attached;
+    }
+
+    private void attach( WidgetPresenter<?> presenter ) {
+        presenter.bind();
+        display.addWidget( presenter.getDisplay().asWidget() );
+        presenter.attached = true;
+        attachedPresenters.add( presenter );
+    }
+
+    private void ensureAttached( WidgetPresenter<?> presenter ) {
+        if ( !isAttached( presenter ) )
+            attach( presenter );
     }
 
     /**
@@ -101,20 +207,26 @@ public abstract class WidgetContainerPresenter<T extends WidgetContainerDisplay>
     /**
      * Sets the specified presenter to the be currently displaying presenter.
      * If the presenter has not been added ({@see #addPresenter(WidgetPresenter<?>)}),
-     * it will not be set as the current presenter.
+     * it will not be set as the current presenter. With lazy binding, the
+     * presenter is bound and its widget added to the display if necessary.
      *
      * @param presenter The presenter.
      * @return <code>true</code> if the presenter was successfully set as the current presenter.
      */
     protected boolean setCurrentPresenter( WidgetPresenter<?> presenter ) {
-        if ( indexOf( presenter ) >= 0 ) {
-            currentPresenter = presenter;
-            display.showWidget( presenter.getDisplay().asWidget() );
+        if ( presenter != null && presenter.container == this ) {
+            showPresenter( presenter );
             return true;
         }
         return false;
     }
 
+    private void showPresenter( WidgetPresenter<?> presenter ) {
+        ensureAttached( presenter );
+        currentPresenter = presenter;
+        display.showWidget( presenter.getDisplay().asWidget() );
+    }
+
     protected int indexOf( WidgetPresenter<?> presenter ) {
         return presenters.indexOf( presenter );
     }
@@ -126,7 +238,7 @@ public abstract class WidgetContainerPresenter<T extends WidgetContainerDisplay>
             // will set this presenter to be the current presenter
             // and as a result the view of this presenter will be shown
             presenters.get( 0 ).revealDisplay();
-        } else {
+        } else if ( currentPresenter != null ) {
             currentPresenter.revealDisplay();
         }
     }
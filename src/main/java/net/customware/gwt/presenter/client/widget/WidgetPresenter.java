@@ -8,6 +8,10 @@ import net.customware.gwt.presenter.client.EventBus;
 /**
  * Abstract super-class for {@link BasicPresenter}s that work with GWT
  * {@link Widget}s via {@link WidgetDisplay}s.
+ * <p/>
+ * A presenter added to a {@link WidgetContainerPresenter} knows its container,
+ * and passes its revelations straight up to it rather than relying on the
+ * container listening to the {@link EventBus}.
  * 
  * @author David Peterson
  * 
@@ -15,7 +19,48 @@ import net.customware.gwt.presenter.client.EventBus;
  *            The {@link WidgetDisplay} type.
  */
 public abstract class WidgetPresenter<D extends WidgetDisplay> extends BasicPresenter<D> {
+
+    /**
+     * The container this presenter has been added to, if any.
+     */
+    WidgetContainerPresenter<?> container;
+
+    /**
+     * Set while the container has bound this presenter and added its widget.
+     */
+    boolean attached;
+
     public WidgetPresenter( D display, EventBus eventBus ) {
         super( display, eventBus );
     }
+
+    /**
+     * @return The container this presenter has been added to, or <code>null</code>.
+     */
+    public WidgetContainerPresenter<?> getContainer() {
+        return container;
+    }
+
+    /**
+     * Asks the container, if any, to bind this presenter and add its widget
+     * if it has not already, so that a lazily bound child is bound before
+     * {@link #onRevealDisplay()} is called.
+     */
+    @Override
+    public void revealDisplay() {
+        if ( container != null )
+            container.childRevealing( this );
+        super.revealDisplay();
+    }
+
+    /**
+     * Fires the {@link net.customware.gwt.presenter.client.PresenterRevealedEvent},
+     * then lets the container, if any, know that this presenter was revealed.
+     */
+    @Override
+    protected void firePresenterRevealedEvent( boolean originator ) {
+        super.firePresenterRevealedEvent( originator );
+        if ( container != null )
+            container.childRevealed( this );
+    }
 }
@@ -0,0 +1,262 @@
+package net.customware.gwt.presenter.server;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+
+/**
+ * Writes a link for each {@link PlaceRequest} in a sequence, eg. to generate
+ * a text sitemap or a list of deep links for millions of entities. Each link
+ * is the prefix, the request's history token and the suffix. Eg:
+ * <p/>
+ * <pre>
+ * HistoryLinkWriter links = new HistoryLinkWriter( "https://example.com/App.html#", "\n" );
+ * links.write( contactRequests, writer );
+ * </pre>
+ * <p/>
+ * Requests are read from an {@link Iterator}, so they can be created as they
+ * are needed. They are formatted in batches into reused buffers, and each
+ * batch is written to the {@link Writer} in a single call, so memory use does
+ * not grow with the number of links.
+ * <p/>
+ * Batches can also be formatted in parallel by an {@link ExecutorService}.
+ * The iterator is still only read by the calling thread, and batches are
+ * written in order, so the output is the same.
+ * <p/>
+ * Tokens are encoded the same way as GWT's <code>History</code> encodes the
+ * URL fragment, so the client reads the same token back. Characters which
+ * are valid in a URL are left as they are, including <code>&amp;</code>, so
+ * escape the output if it is written into XML.
+ * <p/>
+ * A writer has no mutable state, so it can be shared between threads.
+ */
+public class HistoryLinkWriter {
+
+    /**
+     * The default number of requests formatted into each buffer.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * The ASCII characters which are written without encoding.
+     */
+    private static final boolean[] UNENCODED = new boolean[128];
+
+    static {
+        String unencoded = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789"
+                + ";,/?:@&=+$-_.!~*'()";
+        for ( int i = 0; i < unencoded.length(); i++ ) {
+            UNENCODED[unencoded.charAt( i )] = true;
+        }
+    }
+
+    private final ServerTokenFormatter formatter = ServerTokenFormatter.INSTANCE;
+
+    private final String prefix;
+
+    private final String suffix;
+
+    private final int batchSize;
+
+    /**
+     * @param prefix The text written before each token.
+     * @param suffix The text written after each token.
+     */
+    public HistoryLinkWriter( String prefix, String suffix ) {
+        this( prefix, suffix, DEFAULT_BATCH_SIZE );
+    }
+
+    /**
+     * @param prefix    The text written before each token.
+     * @param suffix    The text written after each token.
+     * @param batchSize The number of requests formatted into each buffer.
+     */
+    public HistoryLinkWriter( String prefix, String suffix, int batchSize ) {
+        if ( batchSize < 1 )
+            throw new IllegalArgumentException( "The batch size must be at least 1." );
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Writes a link for each request, in the calling thread.
+     *
+     * @param requests The requests.
+     * @param out      The output. It is not flushed or closed.
+     * @return The number of links written.
+     * @throws IOException if the output throws it.
+     */
+    public long write( Iterator<? extends PlaceRequest> requests, Writer out ) throws IOException {
+        Batch batch = new Batch();
+        long count = 0;
+        while ( batch.fill( requests ) ) {
+            count += batch.size;
+            batch.format();
+            batch.writeTo( out );
+        }
+        return count;
+    }
+
+    /**
+     * Writes a link for each request, formatting up to
+     * <code>parallelism</code> batches at a time with the executor. At most
+     * twice that many batches are held in memory.
+     *
+     * @param requests    The requests.
+     * @param out         The output. It is not flushed or closed.
+     * @param executor    The executor which formats batches.
+     * @param parallelism The number of batches to format at once, usually the number of cores.
+     * @return The number of links written.
+     * @throws IOException if the output throws it, or if the thread is interrupted.
+     */
+    public long write( Iterator<? extends PlaceRequest> requests, Writer out, ExecutorService executor,
+                       int parallelism ) throws IOException {
+        LinkedList<Future<Batch>> pending = new LinkedList<Future<Batch>>();
+        LinkedList<Batch> free = new LinkedList<Batch>();
+        long count = 0;
+        try {
+            while ( true ) {
+                Batch batch = free.isEmpty() ? new Batch() : free.removeFirst();
+                if ( !batch.fill( requests ) )
+                    break;
+                count += batch.size;
+                pending.addLast( executor.submit( batch ) );
+                // Keep a second batch queued for each thread while writing.
+                if ( pending.size() >= parallelism * 2 )
+                    free.addLast( writeNext( pending, out ) );
+            }
+            while ( !pending.isEmpty() ) {
+                writeNext( pending, out );
+            }
+        } finally {
+            for ( Future<Batch> future : pending ) {
+                future.cancel( true );
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Waits for the oldest batch to be formatted, and writes it.
+     *
+     * @return The batch, which can be reused.
+     */
+    private Batch writeNext( LinkedList<Future<Batch>> pending, Writer out ) throws IOException {
+        try {
+            Batch batch = pending.removeFirst().get();
+            batch.writeTo( out );
+            return batch;
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while formatting links." );
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException )
+                throw (RuntimeException) cause;
+            if ( cause instanceof Error )
+                throw (Error) cause;
+            IOException failure = new IOException( "Unable to format links." );
+            failure.initCause( cause );
+            throw failure;
+        }
+    }
+
+    /**
+     * Appends the token, encoded as a URL fragment. Non-ASCII characters are
+     * encoded as UTF-8.
+     */
+    private static void encode( CharSequence token, StringBuilder out ) {
+        int length = token.length();
+        for ( int i = 0; i < length; i++ ) {
+            char c = token.charAt( i );
+            if ( c < 128 && UNENCODED[c] ) {
+                out.append( c );
+            } else if ( c < 0x80 ) {
+                appendEncoded( c, out );
+            } else if ( c < 0x800 ) {
+                appendEncoded( 0xC0 | ( c >> 6 ), out );
+                appendEncoded( 0x80 | ( c & 0x3F ), out );
+            } else if ( Character.isHighSurrogate( c ) && i + 1 < length
+                    && Character.isLowSurrogate( token.charAt( i + 1 ) ) ) {
+                int code = Character.toCodePoint( c, token.charAt( ++i ) );
+                appendEncoded( 0xF0 | ( code >> 18 ), out );
+                appendEncoded( 0x80 | ( ( code >> 12 ) & 0x3F ), out );
+                appendEncoded( 0x80 | ( ( code >> 6 ) & 0x3F ), out );
+                appendEncoded( 0x80 | ( code & 0x3F ), out );
+            } else {
+                appendEncoded( 0xE0 | ( c >> 12 ), out );
+                appendEncoded( 0x80 | ( ( c >> 6 ) & 0x3F ), out );
+                appendEncoded( 0x80 | ( c & 0x3F ), out );
+            }
+        }
+    }
+
+    private static void appendEncoded( int b, StringBuilder out ) {
+        out.append( '%' ).append( HEX[( b >> 4 ) & 0xF] ).append( HEX[b & 0xF] );
+    }
+
+    /**
+     * A batch of requests and the buffer they are formatted into.
+     */
+    private final class Batch implements Callable<Batch> {
+
+        private final PlaceRequest[] requests = new PlaceRequest[batchSize];
+
+        private int size;
+
+        private final StringBuilder token = new StringBuilder();
+
+        private final StringBuilder links = new StringBuilder();
+
+        private char[] chars = new char[0];
+
+        /**
+         * Reads the next requests from the iterator.
+         *
+         * @return <code>false</code> if there were no more requests.
+         */
+        boolean fill( Iterator<? extends PlaceRequest> iterator ) {
+            size = 0;
+            while ( size < requests.length && iterator.hasNext() ) {
+                requests[size++] = iterator.next();
+            }
+            return size > 0;
+        }
+
+        public Batch call() {
+            format();
+            return this;
+        }
+
+        void format() {
+            links.setLength( 0 );
+            for ( int i = 0; i < size; i++ ) {
+                token.setLength( 0 );
+                formatter.appendHistoryToken( requests[i], token );
+                requests[i] = null;
+                links.append( prefix );
+                encode( token, links );
+                links.append( suffix );
+            }
+        }
+
+        void writeTo( Writer out ) throws IOException {
+            int length = links.length();
+            if ( chars.length < length )
+                chars = new char[length];
+            links.getChars( 0, length, chars, 0 );
+            out.write( chars, 0, length );
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package net.customware.gwt.presenter.server;
+
+import java.io.IOException;
+
+import net.customware.gwt.presenter.client.place.ParameterTokenFormatter;
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+import net.customware.gwt.presenter.client.place.TokenFormatException;
+import net.customware.gwt.presenter.client.place.TokenFormatter;
+import net.customware.gwt.presenter.client.place.TokenScanner;
+
+/**
+ * A {@link TokenFormatter} for generating and reading history tokens on the
+ * server, eg. for links in emails, sitemaps or prerendered pages. Tokens use
+ * the same format as {@link ParameterTokenFormatter}, so they can be read by
+ * the client.
+ * <p/>
+ * The formatter has no state, so a single instance can be shared by any
+ * number of threads. {@link PlaceRequest}s are immutable, and can also be
+ * shared once created. Tokens can be written straight to an
+ * {@link Appendable}, such as a {@link java.io.Writer} or a reused
+ * {@link StringBuilder}, without creating a <code>String</code> for each
+ * one. Eg:
+ * <p/>
+ * <pre>
+ * Writer out = new BufferedWriter( ... );
+ * for ( long id : ids ) {
+ *     out.write( "https://example.com/#" );
+ *     ServerTokenFormatter.INSTANCE.appendHistoryToken( new PlaceRequest( "contact" ).with( "id", String.valueOf( id ) ), out );
+ *     out.write( '\n' );
+ * }
+ * </pre>
+ */
+public final class ServerTokenFormatter implements TokenFormatter {
+
+    /**
+     * A shared instance.
+     */
+    public static final ServerTokenFormatter INSTANCE = new ServerTokenFormatter();
+
+    public ServerTokenFormatter() {
+    }
+
+    public String toHistoryToken( PlaceRequest placeRequest ) {
+        StringBuilder out = new StringBuilder( estimateLength( placeRequest ) );
+        appendHistoryToken( placeRequest, out );
+        return out.toString();
+    }
+
+    /**
+     * Appends the token for the request.
+     *
+     * @param placeRequest The request.
+     * @param out          The builder to append to.
+     */
+    public void appendHistoryToken( PlaceRequest placeRequest, StringBuilder out ) {
+        out.append( placeRequest.getName() );
+        int count = placeRequest.getParameterCount();
+        for ( int i = 0; i < count; i++ ) {
+            TokenScanner.appendParameter( out, placeRequest.getParameterName( i ), placeRequest.getParameterValue( i ) );
+        }
+    }
+
+    /**
+     * Appends the token for the request. Separators are escaped while
+     * writing, and unescaped runs of characters are appended in one call, so
+     * the output does not need to be buffered by the caller beyond what the
+     * {@link Appendable} itself does.
+     *
+     * @param placeRequest The request.
+     * @param out          The output.
+     * @throws IOException if the output throws it.
+     */
+    public void appendHistoryToken( PlaceRequest placeRequest, Appendable out ) throws IOException {
+        if ( out instanceof StringBuilder ) {
+            appendHistoryToken( placeRequest, (StringBuilder) out );
+            return;
+        }
+        out.append( placeRequest.getName() );
+        int count = placeRequest.getParameterCount();
+        for ( int i = 0; i < count; i++ ) {
+            out.append( TokenScanner.PARAM_SEPARATOR );
+            escape( placeRequest.getParameterName( i ), out );
+            out.append( TokenScanner.VALUE_SEPARATOR );
+            escape( placeRequest.getParameterValue( i ), out );
+        }
+    }
+
+    public PlaceRequest toPlaceRequest( String token ) throws TokenFormatException {
+        TokenScanner scanner = new TokenScanner( token );
+        if ( !scanner.hasParameters() )
+            return new PlaceRequest( scanner.getPlaceName() );
+
+        PlaceRequest.Builder builder = new PlaceRequest.Builder( scanner.getPlaceName() );
+        while ( scanner.nextParameter() ) {
+            builder.with( scanner.getParameterName(), scanner.getParameterValue() );
+        }
+        return builder.build();
+    }
+
+    private static void escape( String value, Appendable out ) throws IOException {
+        int length = value.length();
+        int start = 0;
+        for ( int i = 0; i < length; i++ ) {
+            char c = value.charAt( i );
+            if ( c == TokenScanner.PARAM_SEPARATOR || c == TokenScanner.VALUE_SEPARATOR ) {
+                out.append( value, start, i + 1 ).append( c );
+                start = i + 1;
+            }
+        }
+        if ( start < length )
+            out.append( value, start, length );
+    }
+
+    /**
+     * @return The length of the token if no characters need escaping.
+     */
+    private static int estimateLength( PlaceRequest placeRequest ) {
+        int length = placeRequest.getName().length();
+        for ( int i = placeRequest.getParameterCount() - 1; i >= 0; i-- ) {
+            length += placeRequest.getParameterName( i ).length() + placeRequest.getParameterValue( i ).length() + 2;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,169 @@
+package net.customware.gwt.presenter.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gwt.event.shared.GwtEventAccess;
+import com.google.gwt.event.shared.HandlerRegistration;
+
+public class CopyOnWriteEventBusTest {
+
+    private static class TestPresenter implements Presenter {
+        public void bind() {}
+        public void unbind() {}
+        public boolean isBound() { return true; }
+        public Display getDisplay() { return null; }
+        public void revealDisplay() {}
+    }
+
+    private static class TestEvent extends PresenterChangedEvent {
+        TestEvent() {
+            super(new TestPresenter());
+        }
+
+        boolean live() {
+            return isLive();
+        }
+    }
+
+    private static class RecordingHandler implements PresenterChangedHandler {
+        final List<String> log;
+        final String name;
+
+        RecordingHandler(List<String> log, String name) {
+            this.log = log;
+            this.name = name;
+        }
+
+        public void onPresenterChanged(PresenterChangedEvent event) {
+            log.add(name);
+        }
+    }
+
+    @Test
+    public void handlersAreCalledInOrderWithSourceHandlersFirst() {
+
+        CopyOnWriteEventBus eventBus = new CopyOnWriteEventBus();
+        Presenter presenter = new TestPresenter();
+        List<String> log = new ArrayList<String>();
+
+        eventBus.addHandler(PresenterChangedEvent.getType(), new RecordingHandler(log, "first"));
+        eventBus.addHandler(PresenterChangedEvent.getType(), new RecordingHandler(log, "second"));
+        eventBus.addHandlerToSource(PresenterChangedEvent.getType(), presenter, new RecordingHandler(log, "source"));
+        eventBus.addHandlerToSource(PresenterChangedEvent.getType(), new TestPresenter(), new RecordingHandler(log, "other"));
+
+        PresenterChangedEvent.fire(eventBus, presenter);
+
+        assertEquals("[source, first, second]", log.toString());
+    }
+
+    @Test
+    public void removedHandlersAreNotCalledAndDoNotCount() {
+
+        CopyOnWriteEventBus eventBus = new CopyOnWriteEventBus();
+        List<String> log = new ArrayList<String>();
+        List<HandlerRegistration> registrations = new ArrayList<HandlerRegistration>();
+        for (int i = 0; i < 10; i++) {
+            registrations.add(eventBus.addHandler(PresenterChangedEvent.getType(), new RecordingHandler(log, "h" + i)));
+        }
+        for (int i = 0; i < 10; i += 2) {
+            registrations.get(i).removeHandler();
+        }
+
+        PresenterChangedEvent.fire(eventBus, new TestPresenter());
+
+        assertEquals("[h1, h3, h5, h7, h9]", log.toString());
+        assertEquals(5, eventBus.getHandlerCount(PresenterChangedEvent.getType()));
+        assertEquals("h3", ((RecordingHandler) eventBus.getHandler(PresenterChangedEvent.getType(), 1)).name);
+
+        for (int i = 1; i < 10; i += 2) {
+            registrations.get(i).removeHandler();
+        }
+        assertFalse(eventBus.isEventHandled(PresenterChangedEvent.getType()));
+    }
+
+    @Test
+    public void handlersAddedOrRemovedWhileFiringAffectOnlyLaterEvents() {
+
+        final CopyOnWriteEventBus eventBus = new CopyOnWriteEventBus();
+        final List<String> log = new ArrayList<String>();
+        final HandlerRegistration[] removable = new HandlerRegistration[1];
+
+        eventBus.addHandler(PresenterChangedEvent.getType(), new PresenterChangedHandler() {
+            public void onPresenterChanged(PresenterChangedEvent event) {
+                log.add("adder");
+                removable[0].removeHandler();
+                eventBus.addHandler(PresenterChangedEvent.getType(), new RecordingHandler(log, "added"));
+            }
+        });
+        removable[0] = eventBus.addHandler(PresenterChangedEvent.getType(), new RecordingHandler(log, "removed"));
+
+        PresenterChangedEvent.fire(eventBus, new TestPresenter());
+
+        assertEquals("[adder]", log.toString());
+        assertTrue(eventBus.isEventHandled(PresenterChangedEvent.getType()));
+        assertEquals(2, eventBus.getHandlerCount(PresenterChangedEvent.getType()));
+    }
+
+    @Test
+    public void eventSourceIsClearedAfterFiring() {
+
+        CopyOnWriteEventBus eventBus = new CopyOnWriteEventBus();
+        final Object[] source = new Object[] { "unset" };
+        eventBus.addHandler(PresenterChangedEvent.getType(), new PresenterChangedHandler() {
+            public void onPresenterChanged(PresenterChangedEvent event) {
+                source[0] = event.getSource();
+            }
+        });
+
+        PresenterChangedEvent event = new PresenterChangedEvent(new TestPresenter());
+        eventBus.fireEvent(event);
+        eventBus.fireEvent(event);
+
+        assertSame(null, source[0]);
+    }
+
+    @Test
+    public void eventIsFinishedWhenHandlerThrows() {
+
+        CopyOnWriteEventBus eventBus = new CopyOnWriteEventBus();
+        eventBus.addHandler(PresenterChangedEvent.getType(), new PresenterChangedHandler() {
+            public void onPresenterChanged(PresenterChangedEvent event) {
+                throw new IllegalArgumentException("Failed");
+            }
+        });
+
+        TestEvent event = new TestEvent();
+        try {
+            eventBus.fireEvent(event);
+            fail("Expected the handler's exception");
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+        assertFalse(event.live());
+    }
+
+    @Test
+    public void onlyVerifiedGwtVersionsAreAccepted() {
+
+        assertTrue(GwtEventAccess.isVerifiedVersion("1.7.1"));
+        assertTrue(GwtEventAccess.isVerifiedVersion("1.6.4"));
+        assertFalse(GwtEventAccess.isVerifiedVersion("2.0.0"));
+        assertFalse(GwtEventAccess.isVerifiedVersion(null));
+    }
+
+    @Test
+    public void gwtEventsPassTheProbeOutsideGwt() {
+
+        GwtEventAccess.checkSupported();
+    }
+
+}
@@ -0,0 +1,87 @@
+package net.customware.gwt.presenter.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gwt.event.shared.HandlerRegistration;
+
+public class DefaultEventBusTest {
+
+    private static class TestPresenter implements Presenter {
+        public void bind() {}
+        public void unbind() {}
+        public boolean isBound() { return true; }
+        public Display getDisplay() { return null; }
+        public void revealDisplay() {}
+    }
+
+    private static class RecordingHandler implements PresenterChangedHandler {
+        final List<Presenter> changed = new ArrayList<Presenter>();
+
+        public void onPresenterChanged(PresenterChangedEvent event) {
+            changed.add(event.getPresenter());
+        }
+    }
+
+    @Test
+    public void sourceHandlersOnlyReceiveEventsFromTheirSource() {
+
+        DefaultEventBus eventBus = new DefaultEventBus();
+        Presenter first = new TestPresenter();
+        Presenter second = new TestPresenter();
+        RecordingHandler firstHandler = new RecordingHandler();
+        RecordingHandler globalHandler = new RecordingHandler();
+
+        eventBus.addHandlerToSource(PresenterChangedEvent.getType(), first, firstHandler);
+        eventBus.addHandler(PresenterChangedEvent.getType(), globalHandler);
+
+        PresenterChangedEvent.fire(eventBus, first);
+        PresenterChangedEvent.fire(eventBus, second);
+
+        assertEquals(1, firstHandler.changed.size());
+        assertEquals(first, firstHandler.changed.get(0));
+        assertEquals(2, globalHandler.changed.size());
+    }
+
+    @Test
+    public void removedSourceHandlersNoLongerReceiveEvents() {
+
+        DefaultEventBus eventBus = new DefaultEventBus();
+        Presenter presenter = new TestPresenter();
+        RecordingHandler handler = new RecordingHandler();
+
+        HandlerRegistration registration = eventBus.addHandlerToSource(PresenterChangedEvent.getType(), presenter, handler);
+        assertTrue(eventBus.isEventHandled(PresenterChangedEvent.getType()));
+
+        registration.removeHandler();
+        registration.removeHandler();
+        PresenterChangedEvent.fire(eventBus, presenter);
+
+        assertEquals(0, handler.changed.size());
+        assertFalse(eventBus.isEventHandled(PresenterChangedEvent.getType()));
+    }
+
+    @Test
+    public void eventsAreOnlyHandledForSourcesWithHandlers() {
+
+        DefaultEventBus eventBus = new DefaultEventBus();
+        Presenter presenter = new TestPresenter();
+
+        eventBus.addHandlerToSource(PresenterChangedEvent.getType(), presenter, new RecordingHandler());
+
+        assertTrue(eventBus.isEventHandled(PresenterChangedEvent.getType(), presenter));
+        assertFalse(eventBus.isEventHandled(PresenterChangedEvent.getType(), new TestPresenter()));
+        assertFalse(eventBus.isEventHandled(PresenterChangedEvent.getType(), null));
+
+        eventBus.addHandler(PresenterChangedEvent.getType(), new RecordingHandler());
+
+        assertTrue(eventBus.isEventHandled(PresenterChangedEvent.getType(), new TestPresenter()));
+    }
+
+}
@@ -0,0 +1,104 @@
+package net.customware.gwt.presenter.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import net.customware.gwt.presenter.client.ProfilingEventBus.HandlerProfile;
+import net.customware.gwt.presenter.client.ProfilingEventBus.TypeProfile;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProfilingEventBusTest {
+
+    private static class ManualClock implements Clock {
+
+        double now;
+
+        public double currentTimeMillis() {
+            return now;
+        }
+    }
+
+    private static class SlowHandler implements PresenterChangedHandler {
+        final ManualClock clock;
+        final double millis;
+
+        SlowHandler(ManualClock clock, double millis) {
+            this.clock = clock;
+            this.millis = millis;
+        }
+
+        public void onPresenterChanged(PresenterChangedEvent event) {
+            clock.now += millis;
+        }
+    }
+
+    private static class FastHandler implements PresenterChangedHandler {
+        public void onPresenterChanged(PresenterChangedEvent event) {}
+    }
+
+    private ManualClock clock;
+
+    private ProfilingEventBus eventBus;
+
+    @Before
+    public void setUp() {
+
+        clock = new ManualClock();
+        eventBus = new ProfilingEventBus(clock);
+    }
+
+    @Test
+    public void firesAndHandlerCallsAreTimedPerType() {
+
+        eventBus.addHandler(PresenterChangedEvent.getType(), new FastHandler());
+        eventBus.addHandler(PresenterChangedEvent.getType(), new SlowHandler(clock, 5));
+        eventBus.addHandler(PresenterChangedEvent.getType(), new SlowHandler(clock, 2));
+
+        PresenterChangedEvent.fire(eventBus, null);
+        PresenterChangedEvent.fire(eventBus, null);
+
+        TypeProfile profile = eventBus.getProfile().getType(PresenterChangedEvent.getType());
+        assertEquals(PresenterChangedEvent.class.getName(), profile.getEventClass());
+        assertEquals(2, profile.getFireCount());
+        assertEquals(6, profile.getHandlerCallCount());
+        assertEquals(14.0, profile.getTotalMillis(), 0);
+        assertEquals(7.0, profile.getMaxMillis(), 0);
+
+        List<HandlerProfile> slowest = profile.getSlowestHandlers(1);
+        assertEquals(1, slowest.size());
+        assertEquals(SlowHandler.class.getName(), slowest.get(0).getHandlerClass());
+        assertEquals(4, slowest.get(0).getCallCount());
+        assertEquals(14.0, slowest.get(0).getTotalMillis(), 0);
+        assertEquals(5.0, slowest.get(0).getMaxMillis(), 0);
+        assertEquals(2, profile.getSlowestHandlers(5).size());
+    }
+
+    @Test
+    public void snapshotsAreUnaffectedByLaterEvents() {
+
+        eventBus.addHandler(PresenterChangedEvent.getType(), new SlowHandler(clock, 1));
+        PresenterChangedEvent.fire(eventBus, null);
+
+        ProfilingEventBus.EventProfile snapshot = eventBus.getProfile();
+        PresenterChangedEvent.fire(eventBus, null);
+
+        assertEquals(1, snapshot.getType(PresenterChangedEvent.getType()).getFireCount());
+        assertEquals(2, eventBus.getProfile().getType(PresenterChangedEvent.getType()).getFireCount());
+    }
+
+    @Test
+    public void resetClearsProfiles() {
+
+        eventBus.addHandler(PresenterChangedEvent.getType(), new FastHandler());
+        PresenterChangedEvent.fire(eventBus, null);
+        eventBus.reset();
+
+        assertNull(eventBus.getProfile().getType(PresenterChangedEvent.getType()));
+        assertEquals(0, eventBus.getProfile().getTypes().size());
+    }
+
+}
@@ -0,0 +1,282 @@
+package net.customware.gwt.presenter.client.gin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import net.customware.gwt.presenter.client.BasicPresenter;
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.Display;
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.PresenterChangedEvent;
+import net.customware.gwt.presenter.client.PresenterRevealedEvent;
+import net.customware.gwt.presenter.client.place.DefaultPlaceManager;
+import net.customware.gwt.presenter.client.place.InMemoryHistoryAdapter;
+import net.customware.gwt.presenter.client.place.ParameterTokenFormatter;
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+import net.customware.gwt.presenter.client.place.PlaceRequestEvent;
+import net.customware.gwt.presenter.client.widget.WidgetContainerDisplay;
+import net.customware.gwt.presenter.client.widget.WidgetContainerPresenter;
+import net.customware.gwt.presenter.client.widget.WidgetPresenter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gwt.user.client.ui.Widget;
+import com.google.inject.Provider;
+
+public class PresenterCacheTest {
+
+    private static class TestPresenter extends BasicPresenter<Display> {
+
+        private TestPresenter(EventBus eventBus) {
+            super(new Display() {
+            }, eventBus);
+        }
+
+        @Override
+        protected void onBind() {
+        }
+
+        @Override
+        protected void onUnbind() {
+        }
+
+        @Override
+        protected void onRevealDisplay() {
+        }
+    }
+
+    private static class TestDisplay implements WidgetContainerDisplay {
+        public Widget asWidget() { return null; }
+        public void addWidget(Widget widget) {}
+        public void removeWidget(Widget widget) {}
+        public void showWidget(Widget widget) {}
+    }
+
+    private static class TestWidgetPresenter extends WidgetPresenter<TestDisplay> {
+
+        private TestWidgetPresenter(EventBus eventBus) {
+            super(new TestDisplay(), eventBus);
+        }
+
+        @Override
+        protected void onBind() {
+        }
+
+        @Override
+        protected void onUnbind() {
+        }
+
+        @Override
+        protected void onRevealDisplay() {
+        }
+    }
+
+    private static class TestContainer extends WidgetContainerPresenter<TestDisplay> {
+
+        private TestContainer(EventBus eventBus, WidgetPresenter<?>... presenters) {
+            super(new TestDisplay(), eventBus, presenters);
+        }
+    }
+
+    private class TestPlace extends ProvidedPresenterPlace<TestPresenter> {
+
+        private final String name;
+
+        private TestPlace(String name) {
+            super(new Provider<TestPresenter>() {
+                public TestPresenter get() {
+                    return new TestPresenter(eventBus);
+                }
+            }, cache);
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    private DefaultEventBus eventBus;
+
+    private long now;
+
+    private PresenterCache cache;
+
+    private TestPlace foo;
+
+    private TestPlace bar;
+
+    private TestPlace baz;
+
+    @Before
+    public void setUp() {
+
+        eventBus = new DefaultEventBus();
+        cache = new PresenterCache() {
+            @Override
+            protected long currentTimeMillis() {
+                return now;
+            }
+        };
+        foo = new TestPlace("foo");
+        bar = new TestPlace("bar");
+        baz = new TestPlace("baz");
+        new DefaultPlaceManager(eventBus, new ParameterTokenFormatter(), new InMemoryHistoryAdapter(), foo, bar, baz) {
+        };
+    }
+
+    private void request(String name) {
+        PlaceRequestEvent.fire(eventBus, new PlaceRequest(name));
+    }
+
+    @Test
+    public void presentersAreCreatedOnDemand() {
+
+        assertEquals(0, cache.getLiveCount());
+
+        request("foo");
+
+        assertEquals(1, cache.getLiveCount());
+        assertTrue(foo.getPresenter().isBound());
+    }
+
+    @Test
+    public void leastRecentlyRevealedIsEvicted() {
+
+        cache.setMaxLive(2);
+        request("foo");
+        TestPresenter first = foo.getPresenter();
+        request("bar");
+        request("foo");
+        request("baz");
+
+        assertEquals(2, cache.getLiveCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(first.isBound());
+        assertNull(bar.getCreatedPresenter());
+
+        request("bar");
+        assertEquals(1, cache.getRebuildCount());
+        assertEquals(2, cache.getEvictionCount());
+        assertFalse(first.isBound());
+        assertNotSame(first, foo.getPresenter());
+    }
+
+    @Test
+    public void idlePresentersAreEvicted() {
+
+        cache.setMaxIdleMillis(1000);
+        request("foo");
+        now = 500;
+        request("bar");
+        now = 1200;
+        request("baz");
+
+        assertEquals(2, cache.getLiveCount());
+        assertEquals(1, cache.getIdleEvictionCount());
+
+        now = 5000;
+        cache.evictIdle();
+        assertEquals(0, cache.getLiveCount());
+        assertEquals(3, cache.getIdleEvictionCount());
+    }
+
+    @Test
+    public void rebuiltPresenterHandlersAreRescoped() {
+
+        cache.setMaxLive(1);
+        request("foo");
+        TestPresenter released = foo.getPresenter();
+        request("bar");
+        assertFalse(released.isBound());
+
+        // The released presenter no longer reaches the place.
+        assertFalse(eventBus.isEventHandled(PresenterRevealedEvent.getType(), released));
+        request("foo");
+        assertTrue(eventBus.isEventHandled(PresenterRevealedEvent.getType(), foo.getPresenter()));
+    }
+
+    @Test
+    public void uncachedPresenterIsNotCreatedWhenRegistered() {
+
+        final TestPresenter presenter = new TestPresenter(eventBus);
+        final int[] provided = new int[1];
+        ProvidedPresenterPlace<TestPresenter> place = new ProvidedPresenterPlace<TestPresenter>(
+                new Provider<TestPresenter>() {
+                    public TestPresenter get() {
+                        provided[0]++;
+                        return presenter;
+                    }
+                }) {
+            @Override
+            public String getName() {
+                return "uncached";
+            }
+        };
+        new DefaultPlaceManager(eventBus, new ParameterTokenFormatter(), new InMemoryHistoryAdapter(), place) {
+        };
+
+        assertEquals(0, provided[0]);
+        assertNull(place.getCreatedPresenter());
+        assertFalse(eventBus.isEventHandled(PresenterChangedEvent.getType(), presenter));
+
+        request("uncached");
+        assertTrue(provided[0] > 0);
+        assertEquals(presenter, place.getCreatedPresenter());
+        assertTrue(eventBus.isEventHandled(PresenterChangedEvent.getType(), presenter));
+        assertTrue(eventBus.isEventHandled(PresenterRevealedEvent.getType(), presenter));
+    }
+
+    @Test
+    public void directRevealCountsAsRecentUse() {
+
+        cache.setMaxLive(2);
+        request("foo");
+        request("bar");
+
+        foo.getPresenter().revealDisplay();
+        request("baz");
+
+        assertNull(bar.getCreatedPresenter());
+        assertTrue(foo.getCreatedPresenter().isBound());
+    }
+
+    @Test
+    public void presentersInContainersAreNotReleased() {
+
+        final TestWidgetPresenter child = new TestWidgetPresenter(eventBus);
+        TestContainer container = new TestContainer(eventBus, child);
+        container.bind();
+        ProvidedPresenterPlace<TestWidgetPresenter> childPlace = new ProvidedPresenterPlace<TestWidgetPresenter>(
+                new Provider<TestWidgetPresenter>() {
+                    public TestWidgetPresenter get() {
+                        return child;
+                    }
+                }, cache) {
+            @Override
+            public String getName() {
+                return "child";
+            }
+        };
+        new DefaultPlaceManager(eventBus, new ParameterTokenFormatter(), new InMemoryHistoryAdapter(), childPlace) {
+        };
+
+        cache.setMaxLive(1);
+        request("child");
+        request("foo");
+        request("bar");
+
+        assertTrue(child.isBound());
+        assertEquals(child, childPlace.getCreatedPresenter());
+        assertEquals(1, cache.getLiveCount());
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.evictAll();
+        assertTrue(child.isBound());
+    }
+}
@@ -0,0 +1,30 @@
+package net.customware.gwt.presenter.client.gin;
+
+import net.customware.gwt.presenter.client.CopyOnWriteEventBus;
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.ProfilingEventBus;
+import net.customware.gwt.presenter.client.place.PlaceManager;
+
+import org.junit.Test;
+
+public class PresenterSetupModuleTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void copyOnWriteEventBusIsNotBoundAsAnyEventBus() {
+
+        new PresenterSetupModule(PlaceManager.class).withEventBus(CopyOnWriteEventBus.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void copyOnWriteSubclassesAreNotBoundAsAnyEventBus() {
+
+        new PresenterSetupModule(PlaceManager.class).withEventBus(ProfilingEventBus.class);
+    }
+
+    @Test
+    public void copyOnWriteEventBusIsBoundExplicitly() {
+
+        new PresenterSetupModule(PlaceManager.class).withCopyOnWriteEventBus(ProfilingEventBus.class);
+        new PresenterSetupModule(PlaceManager.class).withEventBus(DefaultEventBus.class);
+    }
+}
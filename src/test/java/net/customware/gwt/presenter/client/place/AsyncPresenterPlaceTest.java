@@ -0,0 +1,170 @@
+package net.customware.gwt.presenter.client.place;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.customware.gwt.presenter.client.BasicPresenter;
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.Display;
+import net.customware.gwt.presenter.client.EventBus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+public class AsyncPresenterPlaceTest {
+
+    private static class TestPresenter extends BasicPresenter<Display> {
+
+        private final List<String> prepared = new ArrayList<String>();
+
+        private int revealCount;
+
+        private TestPresenter(EventBus eventBus) {
+            super(new Display() {
+            }, eventBus);
+        }
+
+        @Override
+        protected void onBind() {
+        }
+
+        @Override
+        protected void onUnbind() {
+        }
+
+        @Override
+        protected void onRevealDisplay() {
+            revealCount++;
+        }
+    }
+
+    private class TestPlace extends AsyncPresenterPlace<TestPresenter> {
+
+        private AsyncCallback<TestPresenter> callback;
+
+        private int loadCount;
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        protected void loadPresenter(AsyncCallback<TestPresenter> callback) {
+            this.callback = callback;
+            loadCount++;
+        }
+
+        @Override
+        protected void onLoadFailure(Throwable caught) {
+        }
+
+        @Override
+        protected void preparePresenter(PlaceRequest request, TestPresenter presenter) {
+            presenter.prepared.add(request.getParameter("id", null));
+        }
+
+        @Override
+        protected PlaceRequest prepareRequest(PlaceRequest request, TestPresenter presenter) {
+            List<String> prepared = presenter.prepared;
+            return request.with("id", prepared.get(prepared.size() - 1));
+        }
+    }
+
+    private EventBus eventBus;
+
+    private InMemoryHistoryAdapter history;
+
+    private TestPlace place;
+
+    private TestPresenter presenter;
+
+    @Before
+    public void setUp() {
+
+        eventBus = new DefaultEventBus();
+        history = new InMemoryHistoryAdapter();
+        place = new TestPlace();
+        presenter = new TestPresenter(eventBus);
+        new DefaultPlaceManager(eventBus, new ParameterTokenFormatter(), history, place) {
+        };
+    }
+
+    @Test
+    public void requestsAreQueuedUntilLoaded() {
+
+        history.newItem("test;id=1", true);
+        history.newItem("test;id=2", true);
+
+        assertFalse(place.isLoaded());
+        assertNull(place.getPresenter());
+        assertEquals(1, place.loadCount);
+
+        place.callback.onSuccess(presenter);
+
+        assertTrue(place.isLoaded());
+        // Only the latest request is revealed.
+        assertEquals(1, presenter.prepared.size());
+        assertEquals("2", presenter.prepared.get(0));
+        assertEquals(1, presenter.revealCount);
+        assertEquals("test;id=2", history.getToken());
+    }
+
+    @Test
+    public void requestsSupersededByOtherPlacesAreDropped() {
+
+        history.newItem("test;id=1", true);
+        history.newItem("other", true);
+
+        place.callback.onSuccess(presenter);
+
+        assertEquals(0, presenter.prepared.size());
+        assertEquals("other", history.getToken());
+    }
+
+    @Test
+    public void requestsAfterLoadingAreHandledImmediately() {
+
+        history.newItem("test;id=1", true);
+        place.callback.onSuccess(presenter);
+
+        history.newItem("test;id=3", true);
+
+        assertEquals(1, place.loadCount);
+        assertEquals("3", presenter.prepared.get(1));
+    }
+
+    @Test
+    public void presenterHandlersAreAddedOnceLoaded() {
+
+        history.newItem("test;id=1", true);
+        place.callback.onSuccess(presenter);
+
+        // Revealing the presenter directly updates History via the place.
+        presenter.prepared.add("5");
+        presenter.revealDisplay();
+
+        assertEquals("test;id=5", history.getToken());
+    }
+
+    @Test
+    public void failedLoadDropsQueueAndRetries() {
+
+        history.newItem("test;id=1", true);
+        place.callback.onFailure(new RuntimeException());
+
+        history.newItem("test;id=2", true);
+        assertEquals(2, place.loadCount);
+
+        place.callback.onSuccess(presenter);
+        assertEquals(1, presenter.prepared.size());
+        assertEquals("2", presenter.prepared.get(0));
+    }
+}
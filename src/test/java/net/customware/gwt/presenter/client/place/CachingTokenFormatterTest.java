@@ -0,0 +1,69 @@
+package net.customware.gwt.presenter.client.place;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class CachingTokenFormatterTest {
+
+    @Test
+    public void repeatedTokensAreParsedOnce() {
+
+        CachingTokenFormatter formatter = new CachingTokenFormatter(new ParameterTokenFormatter());
+
+        PlaceRequest first = formatter.toPlaceRequest("test;id=1");
+        PlaceRequest second = formatter.toPlaceRequest("test;id=1");
+
+        assertSame(first, second);
+        assertEquals(1, formatter.getParseHits());
+        assertEquals(1, formatter.getParseMisses());
+    }
+
+    @Test
+    public void repeatedRequestsAreFormattedOnce() {
+
+        CachingTokenFormatter formatter = new CachingTokenFormatter(new ParameterTokenFormatter());
+
+        assertEquals("test;id=1", formatter.toHistoryToken(new PlaceRequest("test").with("id", "1")));
+        assertEquals("test;id=1", formatter.toHistoryToken(new PlaceRequest("test").with("id", "1")));
+
+        assertEquals(1, formatter.getFormatHits());
+        assertEquals(1, formatter.getFormatMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedValuesAreEvicted() {
+
+        CachingTokenFormatter formatter = new CachingTokenFormatter(new ParameterTokenFormatter(), 2);
+
+        formatter.toPlaceRequest("a");
+        formatter.toPlaceRequest("b");
+        formatter.toPlaceRequest("a");
+        formatter.toPlaceRequest("c");
+        formatter.toPlaceRequest("a");
+        formatter.toPlaceRequest("b");
+
+        assertEquals(2, formatter.getParseHits());
+        assertEquals(4, formatter.getParseMisses());
+    }
+
+    @Test
+    public void failuresAreNotCached() {
+
+        CachingTokenFormatter formatter = new CachingTokenFormatter(new ParameterTokenFormatter());
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                formatter.toPlaceRequest(";id=1");
+                fail("Expected a TokenFormatException");
+            } catch (TokenFormatException e) {
+                // Expected.
+            }
+        }
+        assertEquals(0, formatter.getParseHits());
+        assertEquals(2, formatter.getParseMisses());
+    }
+
+}
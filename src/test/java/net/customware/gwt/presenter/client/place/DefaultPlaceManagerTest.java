@@ -0,0 +1,411 @@
+package net.customware.gwt.presenter.client.place;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.customware.gwt.presenter.client.BasicPresenter;
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.Display;
+import net.customware.gwt.presenter.client.EventBus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gwt.user.client.Command;
+
+public class DefaultPlaceManagerTest {
+
+    private static class TestPlace extends Place {
+
+        private final String name;
+
+        private PlaceRequest lastRequest;
+
+        private int requestCount;
+
+        private TestPlace(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        protected void handleRequest(PlaceRequest request) {
+            lastRequest = request;
+            requestCount++;
+        }
+
+        @Override
+        protected PlaceRequest prepareRequest(PlaceRequest request) {
+            return lastRequest == null ? request : request.with("id", lastRequest.getParameter("id", null));
+        }
+
+        @Override
+        protected void reveal() {
+        }
+    }
+
+    /**
+     * Records the name of each presenter revealed.
+     */
+    private static class RecordingPresenter extends BasicPresenter<Display> {
+
+        private final String name;
+
+        private final List<String> reveals;
+
+        private RecordingPresenter(String name, List<String> reveals, EventBus eventBus) {
+            super(new Display() {
+            }, eventBus);
+            this.name = name;
+            this.reveals = reveals;
+        }
+
+        @Override
+        protected void onBind() {
+        }
+
+        @Override
+        protected void onUnbind() {
+        }
+
+        @Override
+        protected void onRevealDisplay() {
+            reveals.add(name);
+        }
+    }
+
+    private EventBus eventBus;
+
+    private InMemoryHistoryAdapter history;
+
+    private TestPlace foo;
+
+    private TestPlace bar;
+
+    private DefaultPlaceManager placeManager;
+
+    private List<Command> scheduled;
+
+    @Before
+    public void setUp() {
+
+        eventBus = new DefaultEventBus();
+        history = new InMemoryHistoryAdapter();
+        foo = new TestPlace("foo");
+        bar = new TestPlace("bar");
+        scheduled = new ArrayList<Command>();
+        placeManager = new DefaultPlaceManager(eventBus, new ParameterTokenFormatter(), history, foo, bar) {
+            @Override
+            protected void scheduleHistoryUpdate(Command command) {
+                scheduled.add(command);
+            }
+        };
+    }
+
+    @Test
+    public void historyTokenIsRoutedToPlace() {
+
+        history.newItem("foo;id=1", true);
+
+        assertEquals(new PlaceRequest("foo").with("id", "1"), foo.lastRequest);
+        assertNull(bar.lastRequest);
+    }
+
+    @Test
+    public void placeRequestEventUpdatesHistory() {
+
+        PlaceRequestEvent.fire(eventBus, new PlaceRequest("bar").with("id", "2"));
+
+        assertEquals("bar;id=2", history.getToken());
+        assertEquals(1, bar.requestCount);
+    }
+
+    @Test
+    public void backAndForwardRevisitPlaces() {
+
+        history.newItem("foo;id=1", true);
+        history.newItem("bar;id=2", true);
+
+        history.back();
+        assertEquals("foo;id=1", history.getToken());
+        assertEquals(2, foo.requestCount);
+
+        history.forward();
+        assertEquals("bar;id=2", history.getToken());
+        assertEquals(2, bar.requestCount);
+        assertEquals(0, history.getForwardCount());
+    }
+
+    @Test
+    public void newItemClearsForwardStack() {
+
+        history.newItem("foo", true);
+        history.newItem("bar", true);
+        history.back();
+        assertEquals(1, history.getForwardCount());
+
+        history.newItem("bar;id=3", true);
+        assertEquals(0, history.getForwardCount());
+        assertEquals(2, history.getBackCount());
+    }
+
+    @Test
+    public void unchangedTokenIsNotRoutedAgain() {
+
+        history.newItem("foo", true);
+        history.newItem("foo", true);
+
+        assertEquals(1, foo.requestCount);
+    }
+
+    @Test
+    public void fireCurrentPlaceRoutesCurrentToken() {
+
+        assertFalse(placeManager.fireCurrentPlace());
+
+        history.newItem("foo;id=4", false);
+        assertEquals(0, foo.requestCount);
+
+        assertTrue(placeManager.fireCurrentPlace());
+        assertEquals(1, foo.requestCount);
+    }
+
+    @Test
+    public void deregisteredPlaceIsNotRouted() {
+
+        placeManager.deregisterPlace(foo);
+        history.newItem("foo", true);
+
+        assertEquals(0, foo.requestCount);
+    }
+
+    @Test
+    public void redirectSupersedesNavigation() {
+
+        TestPlace redirecting = new TestPlace("old") {
+            @Override
+            protected void handleRequest(PlaceRequest request) {
+                super.handleRequest(request);
+                PlaceRequestEvent.fire(eventBus, new PlaceRequest("foo").with("id", "9"));
+            }
+        };
+        placeManager.registerPlace(redirecting);
+
+        history.newItem("old", true);
+
+        assertTrue(redirecting.getNavigation().isSuperseded());
+        assertEquals(foo.getNavigation().getSequence(), redirecting.getNavigation().getSequence() + 1);
+        // Only the redirect target is written to History.
+        assertEquals("foo;id=9", history.getToken());
+    }
+
+    @Test
+    public void redirectFromPreparePresenterIsNotRevealed() {
+
+        List<String> reveals = new ArrayList<String>();
+        RecordingPresenter a = new RecordingPresenter("a", reveals, eventBus);
+        RecordingPresenter b = new RecordingPresenter("b", reveals, eventBus);
+        a.bind();
+        b.bind();
+        BasicPresenterPlace<RecordingPresenter> redirecting = new BasicPresenterPlace<RecordingPresenter>(a) {
+            @Override
+            public String getName() {
+                return "a";
+            }
+
+            @Override
+            protected void preparePresenter(PlaceRequest request, RecordingPresenter presenter) {
+                PlaceRequestEvent.fire(eventBus, new PlaceRequest("b"));
+            }
+        };
+        placeManager.registerPlace(redirecting);
+        placeManager.registerPlace(new BasicPresenterPlace<RecordingPresenter>(b) {
+            @Override
+            public String getName() {
+                return "b";
+            }
+        });
+
+        history.newItem("a", true);
+
+        assertEquals(1, reveals.size());
+        assertEquals("b", reveals.get(0));
+        assertEquals("b", history.getToken());
+
+        // Revealing the presenter directly later on still updates History.
+        a.revealDisplay();
+        assertEquals("a", history.getToken());
+    }
+
+    @Test
+    public void placeWithCustomMatchingReceivesOtherNames() {
+
+        TestPlace alias = new TestPlace("alias") {
+            @Override
+            public boolean matchesRequest(PlaceRequest request) {
+                return "foo".equals(request.getName()) || super.matchesRequest(request);
+            }
+        };
+        placeManager.registerPlace(alias);
+
+        history.newItem("foo;id=5", true);
+
+        assertEquals(1, alias.requestCount);
+        assertEquals(1, foo.requestCount);
+    }
+
+    @Test
+    public void placeRoutedByNameIsNotOfferedOtherNames() {
+
+        TestPlace named = new TestPlace("named") {
+            @Override
+            public boolean isRoutedByName() {
+                return true;
+            }
+
+            @Override
+            public boolean matchesRequest(PlaceRequest request) {
+                return true;
+            }
+        };
+        placeManager.registerPlace(named);
+
+        history.newItem("foo", true);
+        assertEquals(0, named.requestCount);
+
+        history.newItem("named", true);
+        assertEquals(1, named.requestCount);
+    }
+
+    @Test
+    public void registryPlacesAreRoutedByName() {
+
+        final TestPlace greedy = new TestPlace("greedy") {
+            @Override
+            public boolean matchesRequest(PlaceRequest request) {
+                return true;
+            }
+        };
+        placeManager.setPlaceRegistry(new PlaceRegistry() {
+            public Place getPlace(String name) {
+                return "greedy".equals(name) ? greedy : null;
+            }
+
+            public List<String> getPlaceNames() {
+                return Collections.singletonList("greedy");
+            }
+        });
+
+        history.newItem("greedy", true);
+        assertEquals(1, greedy.requestCount);
+
+        history.newItem("foo", true);
+        assertEquals(1, greedy.requestCount);
+        assertEquals(1, foo.requestCount);
+
+        placeManager.deregisterPlace(greedy);
+        placeManager.registerPlace(greedy);
+        history.newItem("bar", true);
+        assertEquals(2, greedy.requestCount);
+    }
+
+    @Test
+    public void placeRoutesItselfWithoutDefaultPlaceManager() {
+
+        EventBus otherBus = new DefaultEventBus();
+        TestPlace standalone = new TestPlace("standalone");
+        standalone.addHandlers(otherBus);
+
+        PlaceRequestEvent.fire(otherBus, new PlaceRequest("foo"));
+        assertEquals(0, standalone.requestCount);
+
+        PlaceRequestEvent.fire(otherBus, new PlaceRequest("standalone").with("id", "6"));
+        assertEquals(1, standalone.requestCount);
+        assertEquals("6", standalone.lastRequest.getParameter("id", null));
+
+        standalone.removeHandlers(otherBus);
+        PlaceRequestEvent.fire(otherBus, new PlaceRequest("standalone"));
+        assertEquals(1, standalone.requestCount);
+    }
+
+    @Test
+    public void registeredPlaceIsOnlyRoutedOnce() {
+
+        foo.addHandlers(eventBus);
+        PlaceRequestEvent.fire(eventBus, new PlaceRequest("foo"));
+
+        assertEquals(1, foo.requestCount);
+    }
+
+    @Test
+    public void coalescedRevealsWriteLastPlaceOnce() {
+
+        placeManager.setCoalesceHistoryUpdates(true);
+
+        PlaceRequestEvent.fire(eventBus, new PlaceRequest("foo").with("id", "1"));
+        PlaceRequestEvent.fire(eventBus, new PlaceRequest("bar").with("id", "2"));
+        assertEquals(1, scheduled.size());
+        assertEquals("", history.getToken());
+
+        scheduled.remove(0).execute();
+        assertEquals("bar;id=2", history.getToken());
+        assertEquals(1, history.getBackCount());
+    }
+
+    @Test
+    public void coalescedRevealIgnoresStaleChangeFromPreviousPlace() {
+
+        history.newItem("foo;id=1", true);
+        placeManager.setCoalesceHistoryUpdates(true);
+
+        PlaceRequestEvent.fire(eventBus, new PlaceRequest("bar").with("id", "2"));
+        // The outgoing place still matches the token in History.
+        PlaceChangedEvent.fire(eventBus, foo);
+        assertEquals(1, scheduled.size());
+
+        scheduled.remove(0).execute();
+        assertEquals("bar;id=2", history.getToken());
+    }
+
+    @Test
+    public void coalescedChangeFromPendingPlaceIsWritten() {
+
+        placeManager.setCoalesceHistoryUpdates(true);
+
+        PlaceRequestEvent.fire(eventBus, new PlaceRequest("bar").with("id", "2"));
+        bar.lastRequest = new PlaceRequest("bar").with("id", "3");
+        PlaceChangedEvent.fire(eventBus, bar);
+        assertEquals(1, scheduled.size());
+
+        scheduled.remove(0).execute();
+        assertEquals("bar;id=3", history.getToken());
+
+        PlaceChangedEvent.fire(eventBus, foo);
+        assertEquals(0, scheduled.size());
+    }
+
+    @Test
+    public void historyDropsOldestEntries() {
+
+        history = new InMemoryHistoryAdapter("", 2);
+        history.newItem("a", false);
+        history.newItem("b", false);
+        history.newItem("c", false);
+        assertEquals(2, history.getBackCount());
+
+        history.back();
+        history.back();
+        history.back();
+        assertEquals("a", history.getToken());
+    }
+}
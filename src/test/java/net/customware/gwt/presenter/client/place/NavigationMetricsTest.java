@@ -0,0 +1,203 @@
+package net.customware.gwt.presenter.client.place;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.customware.gwt.presenter.client.BasicPresenter;
+import net.customware.gwt.presenter.client.Clock;
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.Display;
+import net.customware.gwt.presenter.client.EventBus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NavigationMetricsTest {
+
+    private static class TestPresenter extends BasicPresenter<Display> {
+
+        private TestPresenter(EventBus eventBus) {
+            super(new Display() {
+            }, eventBus);
+        }
+
+        @Override
+        protected void onBind() {
+        }
+
+        @Override
+        protected void onUnbind() {
+        }
+
+        @Override
+        protected void onRevealDisplay() {
+        }
+    }
+
+    private static class TestPlace extends BasicPresenterPlace<TestPresenter> {
+
+        private final String name;
+
+        private TestPlace(String name, TestPresenter presenter) {
+            super(presenter);
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Advances by a millisecond each time it is read.
+     */
+    private static class TickingClock implements Clock {
+
+        private double now;
+
+        public double currentTimeMillis() {
+            return now++;
+        }
+    }
+
+    private EventBus eventBus;
+
+    private InMemoryHistoryAdapter history;
+
+    private DefaultPlaceManager placeManager;
+
+    private TestPlace foo;
+
+    private final List<PlaceNavigation> completed = new ArrayList<PlaceNavigation>();
+
+    @Before
+    public void setUp() {
+
+        eventBus = new DefaultEventBus();
+        history = new InMemoryHistoryAdapter();
+        foo = new TestPlace("foo", new TestPresenter(eventBus));
+        placeManager = new DefaultPlaceManager(eventBus, new ParameterTokenFormatter(), history,
+                foo, new TestPlace("bar", new TestPresenter(eventBus))) {
+        };
+        placeManager.setClock(new TickingClock());
+        placeManager.setNavigationMetricsSink(new NavigationMetricsSink() {
+            public void onNavigationCompleted(PlaceNavigation navigation) {
+                completed.add(navigation);
+            }
+        });
+    }
+
+    @Test
+    public void historyNavigationReachesEveryStageInOrder() {
+
+        history.newItem("foo", true);
+
+        assertEquals(1, completed.size());
+        PlaceNavigation navigation = completed.get(0);
+        assertFalse(navigation.isSuperseded());
+        double previous = -1;
+        for (NavigationStage stage : NavigationStage.values()) {
+            assertTrue(stage.name(), navigation.hasReached(stage));
+            assertTrue(stage.name(), navigation.getTime(stage) > previous);
+            previous = navigation.getTime(stage);
+        }
+        assertEquals(0, navigation.getElapsed(NavigationStage.TOKEN_RECEIVED), 0);
+    }
+
+    @Test
+    public void requestEventSkipsTokenStages() {
+
+        PlaceRequestEvent.fire(eventBus, new PlaceRequest("bar"));
+
+        PlaceNavigation navigation = completed.get(0);
+        assertFalse(navigation.hasReached(NavigationStage.TOKEN_RECEIVED));
+        assertTrue(navigation.hasReached(NavigationStage.HISTORY_UPDATED));
+    }
+
+    @Test
+    public void unmatchedNavigationIsReportedImmediately() {
+
+        history.newItem("unknown", true);
+        assertEquals(1, completed.size());
+        assertFalse(completed.get(0).isSuperseded());
+        assertFalse(completed.get(0).hasReached(NavigationStage.PLACE_MATCHED));
+
+        history.newItem("foo", true);
+
+        assertEquals(2, completed.size());
+        assertFalse(completed.get(1).isSuperseded());
+    }
+
+    @Test
+    public void histogramSinkCountsUnmatchedNavigations() {
+
+        NavigationHistogramSink sink = new NavigationHistogramSink();
+        placeManager.setNavigationMetricsSink(sink);
+
+        history.newItem("unknown", true);
+        history.newItem("foo", true);
+
+        assertEquals(1, sink.getUnmatchedCount());
+        assertEquals(0, sink.getSupersededCount());
+        assertEquals(1, sink.getPlaceNames().size());
+    }
+
+    @Test
+    public void directRevealDoesNotMarkCompletedNavigation() {
+
+        history.newItem("foo", true);
+        PlaceNavigation navigation = completed.get(0);
+        double revealed = navigation.getTime(NavigationStage.DISPLAY_REVEALED);
+
+        foo.getPresenter().revealDisplay();
+
+        assertEquals(revealed, navigation.getTime(NavigationStage.DISPLAY_REVEALED), 0);
+        assertEquals(1, completed.size());
+    }
+
+    @Test
+    public void histogramSinkRecordsPerPlace() {
+
+        NavigationHistogramSink sink = new NavigationHistogramSink();
+        placeManager.setNavigationMetricsSink(sink);
+
+        history.newItem("foo", true);
+        history.newItem("bar", true);
+        history.newItem("foo;id=1", true);
+
+        LatencyHistogram total = sink.getHistogram("foo", NavigationStage.HISTORY_UPDATED);
+        assertEquals(2, total.getCount());
+        assertTrue(total.getMax() > 0);
+        assertEquals(1, sink.getHistogram("bar", NavigationStage.PLACE_MATCHED).getCount());
+        assertEquals(2, sink.getPlaceNames().size());
+    }
+
+    @Test
+    public void navigationsAreNotTimedWithoutSink() {
+
+        placeManager.setNavigationMetricsSink(null);
+        history.newItem("foo", true);
+
+        assertFalse(placeManager.getCurrentNavigation().isTimed());
+    }
+
+    @Test
+    public void histogramPercentiles() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50.5, histogram.getMean(), 0.001);
+        assertEquals(50, histogram.getPercentile(50), 0);
+        assertEquals(100, histogram.getPercentile(95), 0);
+        assertEquals(100, histogram.getMax(), 0);
+    }
+}
@@ -0,0 +1,127 @@
+package net.customware.gwt.presenter.client.place;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the {@link ParameterTokenFormatter} against the
+ * {@link LegacyParameterTokenFormatter} it replaced. The legacy parser does
+ * not read escaped separators back correctly, so parsing is only compared for
+ * tokens without escapes, and escapes are checked by round trips instead.
+ * Names and values which start with a separator are written the same way, so
+ * they are not round tripped.
+ */
+public class ParameterTokenFormatterDifferentialTest {
+
+    private static final char[] TOKEN_CHARS = { 'a', 'b', 'x', ';', '=', '\\' };
+
+    private static final int SAMPLES = 20000;
+
+    private final ParameterTokenFormatter formatter = new ParameterTokenFormatter();
+
+    private final LegacyParameterTokenFormatter legacy = new LegacyParameterTokenFormatter();
+
+    @Test
+    public void parsesTokensWithoutEscapesLikeLegacy() {
+        Random random = new Random( 42 );
+        int compared = 0;
+        while ( compared < SAMPLES ) {
+            String token = randomString( random, 12 );
+            if ( token.indexOf( ";;" ) >= 0 || token.indexOf( "==" ) >= 0 )
+                continue;
+            assertParsedLikeLegacy( token );
+            compared++;
+        }
+    }
+
+    @Test
+    public void parsesEdgeCasesLikeLegacy() {
+        String[] tokens = { "test", "test;", "test;a", "test;a=", "test;=b", "test;=", "test;a=b=",
+                "test;a=b=c", "test;a=b;", "test;a=b;c", "test;a=1;a=2", "test=;a=b" };
+        for ( String token : tokens ) {
+            assertParsedLikeLegacy( token );
+        }
+    }
+
+    @Test
+    public void rendersLikeLegacy() {
+        Random random = new Random( 7 );
+        for ( int i = 0; i < SAMPLES; i++ ) {
+            PlaceRequest request = new PlaceRequest( "test" );
+            int params = random.nextInt( 5 );
+            for ( int j = 0; j < params; j++ ) {
+                request = request.with( randomString( random, 6 ), randomString( random, 6 ) );
+            }
+            assertEquals( legacy.toHistoryToken( request ), formatter.toHistoryToken( request ) );
+        }
+    }
+
+    @Test
+    public void readsAndWritesBackslashesLikeLegacy() {
+        String token = "p;path=\\\\srv\\share";
+        assertParsedLikeLegacy( token );
+        assertEquals( "\\\\srv\\share", formatter.toPlaceRequest( token ).getParameter( "path", null ) );
+
+        PlaceRequest request = new PlaceRequest( "p" ).with( "path", "\\\\srv" );
+        assertEquals( legacy.toHistoryToken( request ), formatter.toHistoryToken( request ) );
+        assertEquals( "p;path=\\\\srv", formatter.toHistoryToken( request ) );
+    }
+
+    @Test
+    public void readsLeadingSeparatorsLikeLegacy() {
+        // Ambiguous, but existing tokens must keep their meaning.
+        PlaceRequest request = new PlaceRequest( "test" ).with( "a", "=x" );
+        assertEquals( "test;a===x", formatter.toHistoryToken( request ) );
+        assertEquals( legacy.toPlaceRequest( "test;a===x" ), formatter.toPlaceRequest( "test;a===x" ) );
+        assertEquals( new PlaceRequest( "test" ).with( "a=", "x" ), formatter.toPlaceRequest( "test;a===x" ) );
+    }
+
+    @Test
+    public void roundTripsEscapedSeparators() {
+        assertRoundTrip( new PlaceRequest( "test" ).with( "name", "value;value" ) );
+        assertRoundTrip( new PlaceRequest( "test" ).with( "name", "a=b" ).with( "other", ";" ) );
+        assertRoundTrip( new PlaceRequest( "test" ).with( "na;me", "a==" ).with( "x", "y;;" ) );
+        assertRoundTrip( new PlaceRequest( "test" ).with( "name", ";value=" ) );
+    }
+
+    @Test
+    public void parsesEscapedSeparators() {
+        assertEquals( new PlaceRequest( "test" ).with( "name", "value;value" ).with( "a", "b" ),
+                formatter.toPlaceRequest( "test;name=value;;value;a=b" ) );
+        assertEquals( new PlaceRequest( "test" ).with( "a=b", "c" ),
+                formatter.toPlaceRequest( "test;a==b=c" ) );
+    }
+
+    private void assertRoundTrip( PlaceRequest request ) {
+        assertEquals( request, formatter.toPlaceRequest( formatter.toHistoryToken( request ) ) );
+    }
+
+    private void assertParsedLikeLegacy( String token ) {
+        PlaceRequest expected;
+        try {
+            expected = legacy.toPlaceRequest( token );
+        } catch ( TokenFormatException e ) {
+            try {
+                formatter.toPlaceRequest( token );
+                fail( "Expected a TokenFormatException for '" + token + "'" );
+            } catch ( TokenFormatException expectedException ) {
+                // Both failed.
+            }
+            return;
+        }
+        assertEquals( "Token '" + token + "'", expected, formatter.toPlaceRequest( token ) );
+    }
+
+    private static String randomString( Random random, int maxLength ) {
+        int length = random.nextInt( maxLength + 1 );
+        StringBuilder out = new StringBuilder( length );
+        for ( int i = 0; i < length; i++ ) {
+            out.append( TOKEN_CHARS[random.nextInt( TOKEN_CHARS.length )] );
+        }
+        return out.toString();
+    }
+}
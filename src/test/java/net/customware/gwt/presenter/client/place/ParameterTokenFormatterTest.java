@@ -1,6 +1,8 @@
 package net.customware.gwt.presenter.client.place;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -48,6 +50,60 @@ public class ParameterTokenFormatterTest {
     	assertTokenIsParsedAs("test;Description=;SomethingElse=hello", new PlaceRequest("test").with("Description", "").with("SomethingElse", "hello"));
     }
     
+    @Test
+    public void equalRequestsAreRenderedAsEqualTokens() {
+
+        ParameterTokenFormatter formatter = new ParameterTokenFormatter();
+        PlaceRequest first = new PlaceRequest("test").with("b", "2").with("a", "1").with("c", "3");
+        PlaceRequest second = new PlaceRequest.Builder("test").with("c", "3").with("b", "2").with("a", "1").build();
+
+        assertEquals("test;a=1;b=2;c=3", formatter.toHistoryToken(first));
+        assertEquals(formatter.toHistoryToken(first), formatter.toHistoryToken(second));
+    }
+
+    @Test
+    public void namesAreInterned() {
+
+        StringPool pool = new StringPool(10);
+        ParameterTokenFormatter formatter = new ParameterTokenFormatter(pool);
+
+        PlaceRequest first = formatter.toPlaceRequest(new String("test;id=1"));
+        PlaceRequest second = formatter.toPlaceRequest(new String("test;id=2"));
+
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getParameterName(0), second.getParameterName(0));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void uniqueTokensDoNotEvictNames() {
+
+        StringPool pool = new StringPool(2);
+        ParameterTokenFormatter formatter = new ParameterTokenFormatter(pool);
+        PlaceRequest first = formatter.toPlaceRequest(new String("test;id=0"));
+
+        for (int i = 1; i < 100; i++) {
+            formatter.toHistoryToken(formatter.toPlaceRequest(new String("test;id=" + i)));
+        }
+
+        assertEquals(2, pool.size());
+        assertSame(first.getName(), formatter.toPlaceRequest(new String("test")).getName());
+        assertEquals(2, pool.getMisses());
+    }
+
+    @Test
+    public void poolIsBounded() {
+
+        StringPool pool = new StringPool(2);
+        String a = pool.intern(new String("a"));
+        pool.intern("b");
+        pool.intern("c");
+
+        assertEquals(2, pool.size());
+        assertNotSame(a, pool.intern(new String("a")));
+        assertEquals(4, pool.getMisses());
+    }
+
     private void assertTokenIsParsedAs(String historyToken, PlaceRequest expectedPlaceRequest) {
     	
     	ParameterTokenFormatter formatter = new ParameterTokenFormatter();
@@ -2,6 +2,12 @@ package net.customware.gwt.presenter.client.place;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Test;
 
@@ -54,4 +60,97 @@ public class PlaceRequestTest {
         assertFalse(request.equals(otherRequest));
     }
 
+    @Test
+    public void builderCreatesSameRequestAsChainedWith() {
+
+        PlaceRequest chained = new PlaceRequest("SomePlace").with("b", "2").with("a", "1").with("c", "3");
+        PlaceRequest built = new PlaceRequest.Builder("SomePlace").with("c", "3").with("a", "1").with("b", "2").build();
+
+        assertEquals(chained, built);
+        assertEquals(chained.hashCode(), built.hashCode());
+    }
+
+    @Test
+    public void laterValuesReplaceEarlierOnes() {
+
+        PlaceRequest request = new PlaceRequest("SomePlace").with("a", "1").with("a", "2");
+
+        assertEquals("2", request.getParameter("a", null));
+        assertEquals(new PlaceRequest("SomePlace").with("a", "2"), request);
+    }
+
+    @Test
+    public void nullValuesAreIgnored() {
+
+        PlaceRequest request = new PlaceRequest("SomePlace").with("a", "1");
+
+        assertSame(request, request.with("a", null));
+        assertEquals(new PlaceRequest("SomePlace"), new PlaceRequest("SomePlace").with("a", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullNamesAreRejected() {
+
+        new PlaceRequest("SomePlace").with(null, "1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullNamesAreRejectedByBuilder() {
+
+        new PlaceRequest.Builder("SomePlace").with(null, "1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullNamesInMapsAreRejected() {
+
+        Map<String, String> params = new HashMap<String, String>();
+        params.put(null, "1");
+
+        new PlaceRequest("SomePlace").with(params);
+    }
+
+    @Test
+    public void nullNamesAreNeverFound() {
+
+        PlaceRequest request = new PlaceRequest("SomePlace").with("a", "1");
+
+        assertEquals("default", request.getParameter(null, "default"));
+        assertFalse(request.getParameterNames().contains(null));
+    }
+
+    @Test
+    public void parameterNamesAreSorted() {
+
+        PlaceRequest request = new PlaceRequest("SomePlace").with("b", "2").with("c", "3").with("a", "1");
+
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<String>(request.getParameterNames()));
+    }
+
+    @Test
+    public void parametersAreIndexedInSortedOrder() {
+
+        PlaceRequest request = new PlaceRequest("SomePlace").with("b", "2").with("c", "3").with("a", "1");
+
+        assertEquals(3, request.getParameterCount());
+        assertEquals("a", request.getParameterName(0));
+        assertEquals("1", request.getParameterValue(0));
+        assertEquals("c", request.getParameterName(2));
+        assertEquals("3", request.getParameterValue(2));
+        assertEquals(0, new PlaceRequest("SomePlace").getParameterCount());
+    }
+
+    @Test
+    public void hashCodeMatchesMapBasedHashCode() {
+
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("a", "1");
+        params.put("b", "2");
+
+        PlaceRequest request = new PlaceRequest("SomePlace").with(params);
+
+        assertEquals(11 * ("SomePlace".hashCode() + params.hashCode()), request.hashCode());
+        assertEquals("2", request.getParameter("b", null));
+        assertEquals("default", request.getParameter("missing", "default"));
+    }
+
 }
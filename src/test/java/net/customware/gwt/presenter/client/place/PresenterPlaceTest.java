@@ -0,0 +1,318 @@
+package net.customware.gwt.presenter.client.place;
+
+import static org.junit.Assert.assertEquals;
+
+import net.customware.gwt.presenter.client.BasicPresenter;
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.Display;
+import net.customware.gwt.presenter.client.EventBus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.event.shared.GwtEvent.Type;
+
+public class PresenterPlaceTest {
+
+    private static class TestPresenter extends BasicPresenter<Display> {
+
+        private String id;
+
+        private String tab = "main";
+
+        private String data;
+
+        private boolean loading;
+
+        private TestPresenter(EventBus eventBus) {
+            super(new Display() {
+            }, eventBus);
+        }
+
+        private void setTab(String tab) {
+            this.tab = tab;
+            firePresenterChangedEvent();
+        }
+
+        @Override
+        protected void onBind() {
+        }
+
+        @Override
+        protected void onUnbind() {
+        }
+
+        @Override
+        protected void onRevealDisplay() {
+        }
+    }
+
+    private static class TestPlace extends BasicPresenterPlace<TestPresenter> {
+
+        private int prepareCount;
+
+        private int requestCount;
+
+        private boolean changeWhilePreparing;
+
+        private boolean asyncPreparation;
+
+        private TestPlace(TestPresenter presenter) {
+            super(presenter);
+        }
+
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @Override
+        protected void preparePresenter(PlaceRequest request, TestPresenter presenter) {
+            prepareCount++;
+            presenter.id = request.getParameter("id", null);
+            presenter.tab = "main";
+            presenter.data = null;
+            presenter.loading = asyncPreparation;
+            if (changeWhilePreparing)
+                presenter.setTab("main");
+        }
+
+        private void loaded(String data) {
+            getPresenter().data = data;
+            getPresenter().loading = false;
+            updateSnapshot();
+        }
+
+        @Override
+        protected PlaceRequest prepareRequest(PlaceRequest request, TestPresenter presenter) {
+            requestCount++;
+            return request.with("id", presenter.id).with("tab", presenter.tab);
+        }
+
+        @Override
+        protected Object createSnapshot(TestPresenter presenter) {
+            if (presenter.loading)
+                return null;
+            return new String[] { presenter.id, presenter.tab, presenter.data };
+        }
+
+        @Override
+        protected void restoreSnapshot(TestPresenter presenter, Object snapshot) {
+            String[] state = (String[]) snapshot;
+            presenter.id = state[0];
+            presenter.tab = state[1];
+            presenter.data = state[2];
+        }
+    }
+
+    /**
+     * An event bus which only implements {@link EventBus}, like third-party ones.
+     */
+    private static class PlainEventBus implements EventBus {
+
+        private final DefaultEventBus delegate = new DefaultEventBus();
+
+        public <H extends EventHandler> HandlerRegistration addHandler(Type<H> type, H handler) {
+            return delegate.addHandler(type, handler);
+        }
+
+        public void fireEvent(GwtEvent<?> event) {
+            delegate.fireEvent(event);
+        }
+
+        public <H extends EventHandler> H getHandler(Type<H> type, int index) {
+            return delegate.getHandler(type, index);
+        }
+
+        public int getHandlerCount(Type<?> type) {
+            return delegate.getHandlerCount(type);
+        }
+
+        public boolean isEventHandled(Type<?> type) {
+            return delegate.isEventHandled(type);
+        }
+    }
+
+    private InMemoryHistoryAdapter history;
+
+    private TestPresenter presenter;
+
+    private TestPlace place;
+
+    @Before
+    public void setUp() {
+
+        EventBus eventBus = new DefaultEventBus();
+        history = new InMemoryHistoryAdapter();
+        presenter = new TestPresenter(eventBus);
+        place = new TestPlace(presenter);
+        place.setSnapshotCacheSize(10);
+        new DefaultPlaceManager(eventBus, new ParameterTokenFormatter(), history, place) {
+        };
+    }
+
+    @Test
+    public void backRestoresSnapshot() {
+
+        history.newItem("test;id=1;tab=main", true);
+        history.newItem("test;id=2;tab=main", true);
+        assertEquals(2, place.prepareCount);
+
+        history.back();
+
+        assertEquals(2, place.prepareCount);
+        assertEquals(1, place.getSnapshotHitCount());
+        assertEquals("1", presenter.id);
+        assertEquals("test;id=1;tab=main", history.getToken());
+    }
+
+    @Test
+    public void presenterChangesAreSnapshotted() {
+
+        history.newItem("test;id=1;tab=main", true);
+        presenter.setTab("details");
+        assertEquals("test;id=1;tab=details", history.getToken());
+
+        history.newItem("test;id=2;tab=main", true);
+        history.back();
+
+        assertEquals("details", presenter.tab);
+        assertEquals(2, place.prepareCount);
+    }
+
+    @Test
+    public void placesWorkWithoutSourceEventBus() {
+
+        EventBus eventBus = new PlainEventBus();
+        history = new InMemoryHistoryAdapter();
+        presenter = new TestPresenter(eventBus);
+        place = new TestPlace(presenter);
+        TestPresenter otherPresenter = new TestPresenter(eventBus);
+        TestPlace other = new TestPlace(otherPresenter) {
+            @Override
+            public String getName() {
+                return "other";
+            }
+        };
+        new DefaultPlaceManager(eventBus, new ParameterTokenFormatter(), history, place, other) {
+        };
+
+        history.newItem("test;id=1;tab=main", true);
+        presenter.setTab("details");
+        assertEquals("test;id=1;tab=details", history.getToken());
+
+        // Changes to another place's presenter are not taken as this one's.
+        place.requestCount = 0;
+        otherPresenter.setTab("details");
+        assertEquals(0, place.requestCount);
+    }
+
+    @Test
+    public void changedRequestIsOnlyCreatedOnce() {
+
+        history.newItem("test;id=1;tab=main", true);
+        place.requestCount = 0;
+
+        presenter.setTab("details");
+
+        assertEquals("test;id=1;tab=details", history.getToken());
+        assertEquals(1, place.requestCount);
+        assertEquals(0, place.getSuppressedChangeCount());
+    }
+
+    @Test
+    public void unchangedRequestIsSuppressed() {
+
+        history.newItem("test;id=1;tab=main", true);
+        int backCount = history.getBackCount();
+        place.requestCount = 0;
+
+        presenter.setTab("main");
+
+        assertEquals("test;id=1;tab=main", history.getToken());
+        assertEquals(backCount, history.getBackCount());
+        assertEquals(1, place.requestCount);
+        assertEquals(1, place.getSuppressedChangeCount());
+    }
+
+    @Test
+    public void requestsCreatedElsewhereDoNotSuppressChanges() {
+
+        history.newItem("test;id=1;tab=main", true);
+        presenter.tab = "details";
+        place.createRequest();
+
+        presenter.setTab("details");
+
+        assertEquals("test;id=1;tab=details", history.getToken());
+        assertEquals(0, place.getSuppressedChangeCount());
+    }
+
+    @Test
+    public void invalidatedSnapshotIsPreparedAgain() {
+
+        history.newItem("test;id=1;tab=main", true);
+        history.newItem("test;id=2;tab=main", true);
+        place.invalidateSnapshots();
+
+        history.back();
+
+        assertEquals(3, place.prepareCount);
+        assertEquals(0, place.getSnapshotHitCount());
+    }
+
+    @Test
+    public void snapshotsAreOffByDefault() {
+
+        place.setSnapshotCacheSize(0);
+        history.newItem("test;id=1;tab=main", true);
+        history.newItem("test;id=2;tab=main", true);
+        history.back();
+
+        assertEquals(3, place.prepareCount);
+        assertEquals(0, place.getSnapshotCacheSize());
+    }
+
+    @Test
+    public void changesWhilePreparingAreSnapshottedUnderCreatedRequest() {
+
+        place.setSnapshotCacheSize(2);
+        place.changeWhilePreparing = true;
+
+        history.newItem("test;id=1;tab=main", true);
+        history.newItem("test;id=2;tab=main", true);
+        history.back();
+
+        assertEquals(2, place.prepareCount);
+        assertEquals(1, place.getSnapshotHitCount());
+    }
+
+    @Test
+    public void asyncPreparationIsSnapshottedOnceComplete() {
+
+        place.asyncPreparation = true;
+        history.newItem("test;id=1;tab=main", true);
+        place.loaded("first");
+
+        history.newItem("test;id=2;tab=main", true);
+        history.back();
+
+        assertEquals(2, place.prepareCount);
+        assertEquals("first", presenter.data);
+    }
+
+    @Test
+    public void incompleteAsyncPreparationIsNotSnapshotted() {
+
+        place.asyncPreparation = true;
+        history.newItem("test;id=1;tab=main", true);
+        history.newItem("test;id=2;tab=main", true);
+        history.back();
+
+        assertEquals(3, place.prepareCount);
+        assertEquals(0, place.getSnapshotHitCount());
+    }
+}
@@ -0,0 +1,225 @@
+package net.customware.gwt.presenter.client.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.customware.gwt.presenter.client.DefaultEventBus;
+import net.customware.gwt.presenter.client.EventBus;
+import net.customware.gwt.presenter.client.PresenterRevealedEvent;
+import net.customware.gwt.presenter.client.PresenterRevealedHandler;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gwt.user.client.ui.Widget;
+
+public class WidgetContainerPresenterTest {
+
+    private static class TestDisplay implements WidgetContainerDisplay {
+
+        private int widgetCount;
+
+        public Widget asWidget() {
+            return null;
+        }
+
+        public void addWidget(Widget widget) {
+            widgetCount++;
+        }
+
+        public void removeWidget(Widget widget) {
+            widgetCount--;
+        }
+
+        public void showWidget(Widget widget) {
+        }
+    }
+
+    private static class TestPresenter extends WidgetPresenter<TestDisplay> {
+
+        private final List<String> log;
+
+        private final String name;
+
+        private TestPresenter(EventBus eventBus, List<String> log, String name) {
+            super(new TestDisplay(), eventBus);
+            this.log = log;
+            this.name = name;
+        }
+
+        @Override
+        protected void onBind() {
+            log.add("bind " + name);
+        }
+
+        @Override
+        protected void onUnbind() {
+        }
+
+        @Override
+        protected void onRevealDisplay() {
+            log.add("reveal " + name + (isBound() ? "" : " unbound"));
+        }
+    }
+
+    private static class TestContainer extends WidgetContainerPresenter<TestDisplay> {
+
+        private TestContainer(EventBus eventBus, boolean lazyBinding, WidgetPresenter<?>... presenters) {
+            super(new TestDisplay(), eventBus, lazyBinding, presenters);
+        }
+
+        private void add(WidgetPresenter<?> presenter) {
+            addPresenter(presenter);
+        }
+    }
+
+    private DefaultEventBus eventBus;
+
+    private List<String> log;
+
+    private TestPresenter first;
+
+    private TestPresenter second;
+
+    @Before
+    public void setUp() {
+
+        eventBus = new DefaultEventBus();
+        log = new ArrayList<String>();
+        first = new TestPresenter(eventBus, log, "first");
+        second = new TestPresenter(eventBus, log, "second");
+    }
+
+    @Test
+    public void lazyChildrenAreNotBoundWithContainer() {
+
+        TestContainer container = new TestContainer(eventBus, true, first, second);
+        container.bind();
+
+        assertFalse(first.isBound());
+        assertFalse(second.isBound());
+        assertEquals(0, container.getDisplay().widgetCount);
+    }
+
+    @Test
+    public void lazyChildIsBoundBeforeItIsRevealed() {
+
+        TestContainer container = new TestContainer(eventBus, true, first, second);
+        container.bind();
+
+        second.revealDisplay();
+
+        assertEquals("[bind second, reveal second]", log.toString());
+        assertTrue(container.isAttached(second));
+        assertFalse(first.isBound());
+        assertSame(second, container.getCurrentPresenter());
+        assertEquals(1, container.getDisplay().widgetCount);
+    }
+
+    @Test
+    public void revealingLazyContainerBindsFirstChildOnly() {
+
+        TestContainer container = new TestContainer(eventBus, true, first, second);
+        container.bind();
+
+        container.revealDisplay();
+
+        assertEquals("[bind first, reveal first]", log.toString());
+        assertSame(first, container.getCurrentPresenter());
+        assertFalse(second.isBound());
+    }
+
+    @Test
+    public void nestedLazyContainersAreBoundFromTheTop() {
+
+        TestContainer inner = new TestContainer(eventBus, true, first);
+        TestContainer outer = new TestContainer(eventBus, true, inner);
+        outer.bind();
+
+        first.revealDisplay();
+
+        assertEquals("[bind first, reveal first]", log.toString());
+        assertTrue(inner.isBound());
+        assertTrue(outer.isAttached(inner));
+        assertSame(first, inner.getCurrentPresenter());
+        assertSame(inner, outer.getCurrentPresenter());
+    }
+
+    @Test
+    public void unbindingDetachesOnlyLazilyAttachedChildren() {
+
+        TestContainer container = new TestContainer(eventBus, true, first, second);
+        container.bind();
+        second.revealDisplay();
+
+        container.unbind();
+
+        assertFalse(second.isBound());
+        assertFalse(container.isAttached(second));
+        assertEquals(0, container.getDisplay().widgetCount);
+    }
+
+    @Test
+    public void revealedChildRevealsContainer() {
+
+        TestContainer container = new TestContainer(eventBus, false, first, second);
+        container.bind();
+        final List<Boolean> containerRevealed = new ArrayList<Boolean>();
+        eventBus.addHandlerToSource(PresenterRevealedEvent.getType(), container, new PresenterRevealedHandler() {
+            public void onPresenterRevealed(PresenterRevealedEvent event) {
+                containerRevealed.add(event.isOriginator());
+            }
+        });
+
+        second.revealDisplay();
+
+        assertSame(second, container.getCurrentPresenter());
+        assertEquals("[false]", containerRevealed.toString());
+    }
+
+    @Test
+    public void eventFiredForChildDoesNotReachContainer() {
+
+        TestContainer container = new TestContainer(eventBus, false, first, second);
+        container.bind();
+        eventBus.addHandlerToSource(PresenterRevealedEvent.getType(), second, new PresenterRevealedHandler() {
+            public void onPresenterRevealed(PresenterRevealedEvent event) {
+            }
+        });
+
+        PresenterRevealedEvent.fire(eventBus, second);
+
+        assertNull(container.getCurrentPresenter());
+    }
+
+    @Test
+    public void addingChildToAnotherContainerMovesIt() {
+
+        TestContainer previous = new TestContainer(eventBus, false, first, second);
+        previous.bind();
+        second.revealDisplay();
+        TestContainer next = new TestContainer(eventBus, false);
+
+        next.add(second);
+        assertFalse(previous.isAttached(second));
+        assertNull(previous.getCurrentPresenter());
+        assertEquals(1, previous.getDisplay().widgetCount);
+        assertTrue(second.isBound());
+
+        next.bind();
+        second.revealDisplay();
+
+        assertSame(second, next.getCurrentPresenter());
+        assertNull(previous.getCurrentPresenter());
+        assertEquals(1, next.getDisplay().widgetCount);
+
+        previous.unbind();
+        assertTrue(second.isBound());
+    }
+}
@@ -0,0 +1,99 @@
+package net.customware.gwt.presenter.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+
+import org.junit.Test;
+
+public class HistoryLinkWriterTest {
+
+    /**
+     * Creates each request as it is read.
+     */
+    private static class ContactRequests implements Iterator<PlaceRequest> {
+
+        private final int count;
+
+        private int next;
+
+        ContactRequests(int count) {
+            this.count = count;
+        }
+
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        public PlaceRequest next() {
+            if (next >= count)
+                throw new NoSuchElementException();
+            return new PlaceRequest("contact").with("id", String.valueOf(next++));
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    public void linksAreWrittenWithPrefixAndSuffix() throws Exception {
+
+        StringWriter out = new StringWriter();
+        long count = new HistoryLinkWriter("http://example.com/#", "\n", 2).write(new ContactRequests(3), out);
+
+        assertEquals(3, count);
+        assertEquals("http://example.com/#contact;id=0\nhttp://example.com/#contact;id=1\nhttp://example.com/#contact;id=2\n",
+                out.toString());
+    }
+
+    @Test
+    public void tokensAreEncodedAsFragments() throws Exception {
+
+        StringWriter out = new StringWriter();
+        PlaceRequest request = new PlaceRequest("search").with("q", "a b;c#d%\u00e9\u20ac\ud83d\ude00");
+        new HistoryLinkWriter("#", "").write(Arrays.asList(request).iterator(), out);
+
+        assertEquals("#search;q=a%20b;;c%23d%25%C3%A9%E2%82%AC%F0%9F%98%80", out.toString());
+    }
+
+    @Test
+    public void parallelOutputMatchesSequentialOutput() throws Exception {
+
+        HistoryLinkWriter links = new HistoryLinkWriter("/#", "\n", 100);
+        StringWriter sequential = new StringWriter();
+        StringWriter parallel = new StringWriter();
+
+        links.write(new ContactRequests(10001), sequential);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(10001, links.write(new ContactRequests(10001), parallel, executor, 4));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(sequential.toString(), parallel.toString());
+    }
+
+    @Test
+    public void emptySequenceWritesNothing() throws Exception {
+
+        StringWriter out = new StringWriter();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals(0, new HistoryLinkWriter("#", "\n").write(new ContactRequests(0), out, executor, 2));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals("", out.toString());
+    }
+
+}
@@ -0,0 +1,91 @@
+package net.customware.gwt.presenter.server;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.customware.gwt.presenter.client.place.ParameterTokenFormatter;
+import net.customware.gwt.presenter.client.place.PlaceRequest;
+
+import org.junit.Test;
+
+public class ServerTokenFormatterTest {
+
+    private final ServerTokenFormatter formatter = ServerTokenFormatter.INSTANCE;
+
+    private final ParameterTokenFormatter clientFormatter = new ParameterTokenFormatter();
+
+    @Test
+    public void tokensMatchClientFormat() {
+
+        PlaceRequest request = new PlaceRequest("contact").with("id", "1").with("q", "a;b=c").with("x=y", "");
+
+        assertEquals(clientFormatter.toHistoryToken(request), formatter.toHistoryToken(request));
+        assertEquals(request, formatter.toPlaceRequest(clientFormatter.toHistoryToken(request)));
+    }
+
+    @Test
+    public void tokensAreStreamedToWriter() throws Exception {
+
+        StringWriter out = new StringWriter();
+        formatter.appendHistoryToken(new PlaceRequest("contact").with("q", "a;b"), out);
+        out.append('\n');
+        formatter.appendHistoryToken(new PlaceRequest("list"), out);
+
+        assertEquals("contact;q=a;;b\nlist", out.toString());
+    }
+
+    @Test
+    public void streamedTokensMatchClientFormat() throws Exception {
+
+        PlaceRequest request = new PlaceRequest("contact").with("a", "=x").with(";b", "\\\\srv").with("c", "");
+        StringWriter out = new StringWriter();
+        formatter.appendHistoryToken(request, out);
+
+        assertEquals(clientFormatter.toHistoryToken(request), out.toString());
+    }
+
+    @Test
+    public void sharedRequestsCanBeFormattedConcurrently() throws Exception {
+
+        final List<PlaceRequest> requests = new ArrayList<PlaceRequest>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(new PlaceRequest("contact").with("id", String.valueOf(i)).with("tab", "t;" + i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() {
+                        StringBuilder out = new StringBuilder();
+                        for (int pass = 0; pass < 100; pass++) {
+                            out.setLength(0);
+                            for (PlaceRequest request : requests) {
+                                formatter.appendHistoryToken(request, out);
+                                out.append(' ');
+                            }
+                        }
+                        return out.toString();
+                    }
+                }));
+            }
+
+            String expected = results.get(0).get();
+            assertEquals("contact;id=0;tab=t;;0 ", expected.substring(0, expected.indexOf(' ') + 1));
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}